@@ -0,0 +1,159 @@
+package stroom.testdata;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * One instance of a field from each {@link DataGenerator} field factory, for use in benchmarks.
+ */
+final class BenchmarkFields {
+
+    private static final List<String> WORDS = Arrays.asList(
+            "attractive", "bald", "beautiful", "chubby", "drab", "elegant", "scruffy", "fit", "glamorous",
+            "handsome", "unkempt");
+    private static final List<String> USERS = createUsers(1_000_000);
+    private static final LocalDateTime START = LocalDateTime.of(2016, 1, 1, 0, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2018, 1, 1, 0, 0, 0);
+
+    private static final Map<String, Supplier<Field>> FIELD_FACTORIES = new LinkedHashMap<>();
+
+    static {
+        FIELD_FACTORIES.put("fakerField", () ->
+                DataGenerator.fakerField("fakerField", faker -> faker.name().firstName()));
+        FIELD_FACTORIES.put("sequentialValueField", () ->
+                DataGenerator.sequentialValueField("sequentialValueField", Arrays.asList("One", "Two", "Three")));
+        FIELD_FACTORIES.put("randomValueField", () ->
+                DataGenerator.randomValueField("randomValueField", Arrays.asList("Red", "Green", "Blue")));
+        FIELD_FACTORIES.put("zipfianValueField", () ->
+                DataGenerator.randomValueField(
+                        "zipfianValueField", USERS, ValueDistribution.zipfian(USERS.size(), 1)));
+        FIELD_FACTORIES.put("sequentialValueFileField", () ->
+                DataGenerator.sequentialValueField("sequentialValueFileField", UsersFileHolder.USERS_FILE));
+        FIELD_FACTORIES.put("randomValueFileField", () ->
+                DataGenerator.randomValueField("randomValueFileField", UsersFileHolder.USERS_FILE));
+        FIELD_FACTORIES.put("randomEmoticonEmojiField", () ->
+                DataGenerator.randomEmoticonEmojiField("randomEmoticonEmojiField"));
+        FIELD_FACTORIES.put("randomFoodEmojiField", () ->
+                DataGenerator.randomFoodEmojiField("randomFoodEmojiField"));
+        FIELD_FACTORIES.put("randomAnimalEmojiField", () ->
+                DataGenerator.randomAnimalEmojiField("randomAnimalEmojiField"));
+        FIELD_FACTORIES.put("randomEmojiField", () ->
+                DataGenerator.randomEmojiField("randomEmojiField", Arrays.asList(0x2660, 0x2665, 0x2666, 0x2663)));
+        FIELD_FACTORIES.put("randomNumberedValueField", () ->
+                DataGenerator.randomNumberedValueField("randomNumberedValueField", "user-%s", 100));
+        FIELD_FACTORIES.put("sequentiallyNumberedValueField", () ->
+                DataGenerator.sequentiallyNumberedValueField("sequentiallyNumberedValueField", "user-%s", 5, 1_000));
+        FIELD_FACTORIES.put("sequentialNumberField", () ->
+                DataGenerator.sequentialNumberField("sequentialNumberField", 0, 1_000_000));
+        FIELD_FACTORIES.put("randomNumberField", () ->
+                DataGenerator.randomNumberField("randomNumberField", 0, 1_000_000));
+        FIELD_FACTORIES.put("randomIpV4Field", () ->
+                DataGenerator.randomIpV4Field("randomIpV4Field"));
+        FIELD_FACTORIES.put("randomDateTimeField", () ->
+                DataGenerator.randomDateTimeField(
+                        "randomDateTimeField", START, END, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        FIELD_FACTORIES.put("sequentialDateTimeField", () ->
+                DataGenerator.sequentialDateTimeField(
+                        "sequentialDateTimeField", START, Duration.ofSeconds(1), DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        FIELD_FACTORIES.put("randomTimestampField", () ->
+                DataGenerator.randomTimestampField(
+                        "randomTimestampField",
+                        START.toInstant(ZoneOffset.UTC),
+                        END.toInstant(ZoneOffset.UTC),
+                        TimestampFormat.isoMillis()));
+        FIELD_FACTORIES.put("sequentialTimestampField", () ->
+                DataGenerator.sequentialTimestampField(
+                        "sequentialTimestampField",
+                        START.toInstant(ZoneOffset.UTC),
+                        Duration.ofSeconds(1),
+                        TimestampFormat.isoMillis()));
+        FIELD_FACTORIES.put("eventTimeField", () ->
+                DataGenerator.eventTimeField(
+                        "eventTimeField",
+                        START.toInstant(ZoneOffset.UTC),
+                        ArrivalProcess.bursty(ArrivalProcess.diurnal(1_000, 5, 14), 0.5),
+                        TimestampFormat.isoMillis()));
+        FIELD_FACTORIES.put("uuidField", () ->
+                DataGenerator.uuidField("uuidField"));
+        FIELD_FACTORIES.put("randomWordsField", () ->
+                DataGenerator.randomWordsField("randomWordsField", 0, 3, WORDS));
+    }
+
+    private BenchmarkFields() {
+    }
+
+    private static List<String> createUsers(final int count) {
+        final List<String> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add("user" + i);
+        }
+        return users;
+    }
+
+    /**
+     * @return A temporary file of the users, one per line, deleted when the JVM exits.
+     */
+    private static Path createUsersFile() {
+        try {
+            final Path file = Files.createTempFile("benchmark-users", ".txt");
+            file.toFile().deleteOnExit();
+            Files.write(file, USERS, StandardCharsets.UTF_8);
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException("Error creating users file: " + e.getMessage(), e);
+        }
+    }
+
+    static Field create(final String fieldFactoryName) {
+        final Supplier<Field> fieldFactory = FIELD_FACTORIES.get(fieldFactoryName);
+        if (fieldFactory == null) {
+            throw new IllegalArgumentException("Unknown field factory " + fieldFactoryName);
+        }
+        return fieldFactory.get();
+    }
+
+    /**
+     * @return One field from each factory, except faker which would dominate the cost.
+     */
+    static List<Field> allFields() {
+        final List<Field> fields = new ArrayList<>();
+        for (final String fieldFactoryName : FIELD_FACTORIES.keySet()) {
+            if (!fieldFactoryName.equals("fakerField")) {
+                fields.add(create(fieldFactoryName));
+            }
+        }
+        return fields;
+    }
+
+    static DataGenerator.DefinitionBuilder buildDefinition() {
+        final DataGenerator.DefinitionBuilder builder = DataGenerator.buildDefinition();
+        allFields().forEach(builder::addFieldDefinition);
+        return builder;
+    }
+
+    static GenerationContext createContext(final long seed) {
+        return new GenerationContext(RandomAlgorithm.SPLIT_MIX_64.create(seed), Locale.ENGLISH, null);
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Holds the users file so it is only written when a file backed field is first created.
+     */
+    private static final class UsersFileHolder {
+        private static final Path USERS_FILE = createUsersFile();
+    }
+}
@@ -0,0 +1,95 @@
+package stroom.testdata;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost per record of each {@link DataWriter}, encoding to bytes and mapping to strings,
+ * using records generated up front.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataWriterBenchmark {
+
+    private static final int RECORD_COUNT = 1_000;
+
+    @Param({"csv", "xmlElements", "xmlAttributes", "ndjson", "fixedWidth"})
+    public String dataWriterType;
+
+    private List<Field> fields;
+    private List<Record> records;
+    private EncodingDataWriter dataWriter;
+    private RecordEncoder recordEncoder;
+    private final Utf8Buffer buffer = new Utf8Buffer();
+
+    @Setup
+    public void setup() {
+        switch (dataWriterType) {
+            case "csv":
+                dataWriter = FlatDataWriterBuilder.defaultCsvFormat();
+                break;
+            case "xmlElements":
+                dataWriter = XmlElementsDataWriterBuilder.defaultXmlElementFormat();
+                break;
+            case "xmlAttributes":
+                dataWriter = XmlAttributesDataWriterBuilder.defaultXmlElementFormat();
+                break;
+            case "ndjson":
+                dataWriter = JsonDataWriterBuilder.defaultNdjsonFormat();
+                break;
+            case "fixedWidth":
+                dataWriter = FixedWidthDataWriterBuilder.defaultFixedWidthFormat();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown data writer type " + dataWriterType);
+        }
+
+        fields = BenchmarkFields.allFields();
+        recordEncoder = dataWriter.createEncoder(fields);
+        records = new ArrayList<>(RECORD_COUNT);
+        BenchmarkFields.buildDefinition()
+                .withRandomSeed(123456L)
+                .setDataWriter((fieldDefinitions, recordStream) ->
+                        recordStream.peek(records::add).map(record -> ""))
+                .rowCount(RECORD_COUNT)
+                .consumedBy(stringStream -> stringStream.forEach(row -> {
+                }))
+                .generate();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORD_COUNT)
+    public void encodeRecords(final Blackhole blackhole) {
+        for (final Record record : records) {
+            buffer.reset();
+            recordEncoder.encodeRecord(record, buffer);
+            blackhole.consume(buffer.size());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORD_COUNT)
+    public void mapRecords(final Blackhole blackhole) {
+        dataWriter.mapRecords(fields, records.stream())
+                .forEach(blackhole::consume);
+    }
+}
@@ -0,0 +1,103 @@
+package stroom.testdata;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of generating a single value from each {@link DataGenerator} field factory, both in
+ * the form held in a {@link Record} and rendered as a string.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldBenchmark {
+
+    @Param({
+            "fakerField",
+            "sequentialValueField",
+            "randomValueField",
+            "zipfianValueField",
+            "sequentialValueFileField",
+            "randomValueFileField",
+            "randomEmoticonEmojiField",
+            "randomFoodEmojiField",
+            "randomAnimalEmojiField",
+            "randomEmojiField",
+            "randomNumberedValueField",
+            "sequentiallyNumberedValueField",
+            "sequentialNumberField",
+            "randomNumberField",
+            "randomIpV4Field",
+            "randomDateTimeField",
+            "sequentialDateTimeField",
+            "randomTimestampField",
+            "sequentialTimestampField",
+            "eventTimeField",
+            "uuidField",
+            "randomWordsField"})
+    public String fieldFactory;
+
+    private Field field;
+    private GenerationContext context;
+    private long rowNumber = 0;
+    private final StringBuilder stringBuilder = new StringBuilder();
+
+    @Setup
+    public void setup() {
+        field = BenchmarkFields.create(fieldFactory);
+        context = BenchmarkFields.createContext(123456L);
+    }
+
+    /**
+     * The value as generated into a {@link Record}, i.e. as a primitive where the field allows.
+     */
+    @Benchmark
+    public void slotValue(final Blackhole blackhole) {
+        context.beginRow(++rowNumber);
+        switch (field.getValueSlot()) {
+            case LONG:
+                blackhole.consume(field.getNextLong(context));
+                break;
+            case DOUBLE:
+                blackhole.consume(field.getNextDouble(context));
+                break;
+            default:
+                blackhole.consume(field.getNext(context));
+        }
+    }
+
+    /**
+     * The value generated then rendered into a re-used builder.
+     */
+    @Benchmark
+    public void renderedValue(final Blackhole blackhole) {
+        context.beginRow(++rowNumber);
+        stringBuilder.setLength(0);
+        switch (field.getValueSlot()) {
+            case LONG:
+                field.renderLong(field.getNextLong(context), stringBuilder);
+                break;
+            case DOUBLE:
+                stringBuilder.append(field.getNextDouble(context));
+                break;
+            default:
+                stringBuilder.append(field.getNext(context));
+        }
+        blackhole.consume(stringBuilder);
+    }
+}
@@ -0,0 +1,88 @@
+package stroom.testdata;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost per row of {@link DataGenerator.DefinitionBuilder#generate()} end to end, with a
+ * field from each factory, sequential and multi threaded, seeded and un-seeded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GenerationBenchmark {
+
+    private static final int ROW_COUNT = 100_000;
+
+    private static final OutputStream NULL_OUTPUT_STREAM = new OutputStream() {
+        @Override
+        public void write(final int b) {
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+        }
+    };
+
+    @Param({"false", "true"})
+    public boolean isMultiThreaded;
+
+    @Param({"false", "true"})
+    public boolean isSeeded;
+
+    @Param({"csv", "xmlElements"})
+    public String dataWriterType;
+
+    private DataGenerator.DefinitionBuilder buildDefinition() {
+        final DataGenerator.DefinitionBuilder builder = BenchmarkFields.buildDefinition()
+                .setDataWriter("csv".equals(dataWriterType)
+                        ? FlatDataWriterBuilder.defaultCsvFormat()
+                        : XmlElementsDataWriterBuilder.defaultXmlElementFormat())
+                .rowCount(ROW_COUNT);
+        if (isMultiThreaded) {
+            builder.multiThreaded();
+        }
+        if (isSeeded) {
+            builder.withRandomSeed(123456L);
+        }
+        return builder;
+    }
+
+    /**
+     * Rows consumed as a stream of strings.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROW_COUNT)
+    public void generateStrings(final Blackhole blackhole) {
+        buildDefinition()
+                .consumedBy(stringStream -> stringStream.forEach(blackhole::consume))
+                .generate();
+    }
+
+    /**
+     * Rows consumed as UTF-8 bytes written to a stream that discards them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROW_COUNT)
+    public void generateEncoded() {
+        buildDefinition()
+                .consumedBy(DataGenerator.getEncodedOutputStreamConsumer(NULL_OUTPUT_STREAM, "\n"))
+                .generate();
+    }
+}
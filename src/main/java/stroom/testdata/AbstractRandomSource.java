@@ -0,0 +1,131 @@
+package stroom.testdata;
+
+import java.util.Random;
+
+/**
+ * Base for {@link RandomSource} implementations that derives all values from
+ * {@link #nextLong()}.
+ */
+abstract class AbstractRandomSource implements RandomSource {
+
+    private Random random = null;
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        Utils.checkArgument(bound > 0, "bound must be > 0");
+        // Lemire's multiply and shift, rejecting the few values that would bias the result
+        long product = (nextInt() & 0xFFFFFFFFL) * bound;
+        if ((product & 0xFFFFFFFFL) < bound) {
+            final long threshold = (0x100000000L - bound) % bound;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = (nextInt() & 0xFFFFFFFFL) * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    @Override
+    public long nextLong(final long bound) {
+        Utils.checkArgument(bound > 0, "bound must be > 0");
+        final long mask = bound - 1;
+        if ((bound & mask) == 0L) {
+            // Power of two
+            return nextLong() & mask;
+        }
+        long candidate = nextLong() >>> 1;
+        long result = candidate % bound;
+        // Reject values from the final partial range
+        while (candidate + mask - result < 0L) {
+            candidate = nextLong() >>> 1;
+            result = candidate % bound;
+        }
+        return result;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    @Override
+    public Random asRandom() {
+        if (random == null) {
+            random = new RandomAdapter(this);
+        }
+        return random;
+    }
+
+    /**
+     * SplitMix64 step, used to expand a single seed into well mixed state.
+     */
+    static long splitMix64(final long state) {
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Exposes a {@link RandomSource} as a {@link Random}.
+     */
+    private static class RandomAdapter extends Random {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RandomSource randomSource;
+
+        private RandomAdapter(final RandomSource randomSource) {
+            this.randomSource = randomSource;
+        }
+
+        @Override
+        public synchronized void setSeed(final long seed) {
+            // Called by the Random constructor before randomSource is set
+            if (randomSource != null) {
+                randomSource.setSeed(seed);
+            }
+        }
+
+        @Override
+        protected int next(final int bits) {
+            return (int) (randomSource.nextLong() >>> (64 - bits));
+        }
+
+        @Override
+        public int nextInt() {
+            return randomSource.nextInt();
+        }
+
+        @Override
+        public int nextInt(final int bound) {
+            return randomSource.nextInt(bound);
+        }
+
+        @Override
+        public long nextLong() {
+            return randomSource.nextLong();
+        }
+
+        @Override
+        public double nextDouble() {
+            return randomSource.nextDouble();
+        }
+
+        @Override
+        public boolean nextBoolean() {
+            return randomSource.nextBoolean();
+        }
+    }
+}
@@ -1,9 +1,9 @@
 package stroom.testdata;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Stream;
 
 public abstract class AbstractXmlDataWriterBuilder {
     private Optional<String> namespace = Optional.empty();
@@ -25,42 +25,153 @@ public abstract class AbstractXmlDataWriterBuilder {
         return this;
     }
 
-    public DataWriter build() {
-        //return our mapping function which conforms to the DataWriter interface
-        return this::mapRecords;
+    public EncodingDataWriter build() {
+        //return our encoder factory which conforms to the EncodingDataWriter interface
+        return this::createEncoder;
     }
 
-    private Function<Record, String> getDataMapper(final List<Field> fields) {
-        final String recordFormatStr = buildRecordFormatString(fields);
+    /**
+     * @return The fixed parts of a record's XML, one more than the number of fields, such that
+     * the record is made up of fragment 0, value 0, fragment 1, value 1 ... fragment n.
+     * Any text from the fields in the fragments must already be escaped, see {@link #escape(String, boolean)}.
+     */
+    protected abstract List<String> buildRecordFragments(List<Field> fields);
 
-        return record -> {
-            String[] valuesArr = new String[record.getValues().size()];
-            record.getValues().toArray(valuesArr);
-            return String.format(recordFormatStr, (Object[]) valuesArr);
-        };
+    /**
+     * @return True if the values are written as attribute values rather than element text, so
+     * must also have '"' and white space other than ' ' escaped.
+     */
+    protected boolean isValueInAttribute() {
+        return false;
+    }
+
+    /**
+     * @return value with any chars that would be invalid in element text, or in an attribute
+     * value if isAttribute is true, replaced with entity or character references.
+     */
+    protected static String escape(final String value, final boolean isAttribute) {
+        final Utf8Buffer buffer = new Utf8Buffer(Math.max(16, value.length() * 2));
+        appendEscaped(value, isAttribute, buffer);
+        return buffer.toString();
     }
 
-    protected abstract String buildRecordFormatString(List<Field> fields);
+    private RecordEncoder createEncoder(final List<Field> fields) {
+        final List<String> fragments = buildRecordFragments(fields);
+        Utils.checkArgument(fragments.size() == fields.size() + 1,
+                "Expecting {} fragments, got {}", fields.size() + 1, fragments.size());
+        final String[] fragmentsArr = fragments.toArray(new String[0]);
+        final boolean isAttribute = isValueInAttribute();
 
-    Stream<String> mapRecords(List<Field> fields, Stream<Record> recordStream) {
-        final Function<Record, String> dataMapper = getDataMapper(fields);
+        // Plain numbers never contain anything that needs escaping
+        final boolean[] isPlainNumber = new boolean[fields.size()];
+        for (int i = 0; i < isPlainNumber.length; i++) {
+            final Field field = fields.get(i);
+            isPlainNumber[i] = field.getValueSlot() == Field.ValueSlot.DOUBLE
+                    || (field.getValueSlot() == Field.ValueSlot.LONG && field.isDecimal());
+        }
 
-        final Stream<String> dataStream = recordStream.map(dataMapper);
         final String namespaceAtr = namespace
-                .map(namespace -> String.format(" xmlns=\"%s\"", namespace))
+                .map(namespace -> " xmlns=\"" + escape(namespace, true) + "\"")
                 .orElse("");
 
         final String xmlDeclaration = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
-        final String openRootElm = String.format("<%s%s>", rootElementName, namespaceAtr);
-        final String closeRootElm = String.format("</%s>", rootElementName);
+        final String openRootElm = "<" + rootElementName + namespaceAtr + ">";
+        final String closeRootElm = "</" + rootElementName + ">";
+
+        final List<String> headerRows = Arrays.asList(xmlDeclaration, openRootElm);
+        final List<String> footerRows = Collections.singletonList(closeRootElm);
 
-        final Stream<String> headerStream = Stream.of(xmlDeclaration, openRootElm);
-        final Stream<String> footerStream = Stream.of(closeRootElm);
+        return new RecordEncoder() {
+            @Override
+            public List<String> getHeaderRows() {
+                return headerRows;
+            }
+
+            @Override
+            public void encodeRecord(final Record record, final Utf8Buffer buffer) {
+                for (int i = 0; i < record.size(); i++) {
+                    buffer.append(fragmentsArr[i]);
+                    if (record.isLong(i) || record.isDouble(i)) {
+                        if (isPlainNumber[i]) {
+                            record.appendValue(i, buffer);
+                        } else {
+                            final StringBuilder stringBuilder = buffer.getScratchBuilder();
+                            record.appendValue(i, stringBuilder);
+                            appendEscaped(stringBuilder, isAttribute, buffer);
+                        }
+                    } else {
+                        final String value = record.getValue(i);
+                        if (value != null) {
+                            appendEscaped(value, isAttribute, buffer);
+                        }
+                    }
+                }
+                buffer.append(fragmentsArr[fragmentsArr.length - 1]);
+            }
+
+            @Override
+            public List<String> getFooterRows() {
+                return footerRows;
+            }
+        };
+    }
 
-        //have to force stream to sequential to ensure header and footer go at the
-        //top and bottom respectively.
-        //TODO it would probably be better to improve the DataWrite interface to expose methods
-        //to get the header/footer, then the data stream can be done in parallel
-        return Stream.concat(Stream.concat(headerStream, dataStream), footerStream).sequential();
+    /**
+     * Appends value to buffer in one pass, copying runs of chars that need no escaping as they
+     * are. Chars that XML 1.0 doesn't allow at all, e.g. most control chars, are replaced with '?'.
+     */
+    private static void appendEscaped(final CharSequence value,
+                                      final boolean isAttribute,
+                                      final Utf8Buffer buffer) {
+        final int length = value.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            final String replacement;
+            if (c > '>') {
+                // Nothing above '>' needs escaping apart from the non-characters
+                if (c == '\uFFFE' || c == '\uFFFF') {
+                    replacement = "?";
+                } else {
+                    continue;
+                }
+            } else {
+                switch (c) {
+                    case '&':
+                        replacement = "&amp;";
+                        break;
+                    case '<':
+                        replacement = "&lt;";
+                        break;
+                    case '>':
+                        replacement = "&gt;";
+                        break;
+                    case '"':
+                        replacement = isAttribute ? "&quot;" : null;
+                        break;
+                    case '\t':
+                        replacement = isAttribute ? "&#9;" : null;
+                        break;
+                    case '\n':
+                        replacement = isAttribute ? "&#10;" : null;
+                        break;
+                    case '\r':
+                        // Would be normalised away by a parser wherever it is
+                        replacement = "&#13;";
+                        break;
+                    default:
+                        replacement = c < ' '
+                                ? "?"
+                                : null;
+                }
+                if (replacement == null) {
+                    continue;
+                }
+            }
+            buffer.append(value, runStart, i);
+            buffer.append(replacement);
+            runStart = i + 1;
+        }
+        buffer.append(value, runStart, length);
     }
 }
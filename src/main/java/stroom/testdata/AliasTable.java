@@ -0,0 +1,83 @@
+package stroom.testdata;
+
+/**
+ * Samples indexes in proportion to a set of weights in constant time using Vose's alias method.
+ * Each index has a probability of being kept and an alias to use instead, so a sample is one
+ * uniform choice of index and one biased coin flip, both taken from a single random double.
+ * <p>
+ * See {@link ValueDistribution#weighted(double[])}.
+ */
+class AliasTable implements ValueDistribution {
+
+    private final double[] keepProbabilities;
+    private final int[] aliases;
+
+    AliasTable(final double[] weights) {
+        final int size = weights.length;
+        Utils.checkArgument(size > 0, "weights is empty");
+
+        double totalWeight = 0;
+        for (final double weight : weights) {
+            Utils.checkArgument(weight >= 0 && !Double.isInfinite(weight),
+                    "weights must be finite and >= 0, found {}", weight);
+            totalWeight += weight;
+        }
+        Utils.checkArgument(totalWeight > 0, "weights must not all be zero");
+
+        keepProbabilities = new double[size];
+        aliases = new int[size];
+
+        // Scale so the mean is 1, then pair each index below 1 with one above to fill it up
+        final double[] scaled = new double[size];
+        final int[] small = new int[size];
+        final int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / totalWeight;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            final int smallIdx = small[--smallCount];
+            final int largeIdx = large[--largeCount];
+            keepProbabilities[smallIdx] = scaled[smallIdx];
+            aliases[smallIdx] = largeIdx;
+            scaled[largeIdx] = (scaled[largeIdx] + scaled[smallIdx]) - 1;
+            if (scaled[largeIdx] < 1) {
+                small[smallCount++] = largeIdx;
+            } else {
+                large[largeCount++] = largeIdx;
+            }
+        }
+        // Anything left is 1 give or take rounding errors
+        while (largeCount > 0) {
+            final int idx = large[--largeCount];
+            keepProbabilities[idx] = 1;
+            aliases[idx] = idx;
+        }
+        while (smallCount > 0) {
+            final int idx = small[--smallCount];
+            keepProbabilities[idx] = 1;
+            aliases[idx] = idx;
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return aliases.length;
+    }
+
+    @Override
+    public int nextIndex(final RandomSource random) {
+        final double scaled = random.nextDouble() * aliases.length;
+        final int idx = Math.min((int) scaled, aliases.length - 1);
+        return (scaled - idx) < keepProbabilities[idx]
+                ? idx
+                : aliases[idx];
+    }
+}
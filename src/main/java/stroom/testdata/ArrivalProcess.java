@@ -0,0 +1,68 @@
+package stroom.testdata;
+
+/**
+ * Describes how often events arrive over time, as a rate of events per second that may vary
+ * with the time of day or in bursts. Used by
+ * {@link DataGenerator#eventTimeField(String, java.time.Instant, ArrivalProcess, TimestampFormat)}
+ * to produce time ordered event timestamps.
+ * <p>
+ * Implementations must be thread safe and return the same rate for the same time on every call.
+ */
+@FunctionalInterface
+public interface ArrivalProcess {
+
+    /**
+     * @return The mean number of events per second at epochMillis. Must not be negative.
+     */
+    double getRate(long epochMillis);
+
+    /**
+     * @return Events arriving at a constant mean rate, i.e. a Poisson process.
+     */
+    static ArrivalProcess poisson(final double eventsPerSecond) {
+        Utils.checkArgument(eventsPerSecond > 0, "eventsPerSecond must be > 0");
+        return epochMillis -> eventsPerSecond;
+    }
+
+    /**
+     * @param meanEventsPerSecond The mean rate over a whole day.
+     * @param peakToTroughRatio   How many times busier the peak of the day is than the quietest
+     *                            time, twelve hours later.
+     * @param peakHourUtc         The hour of the day, in UTC, when the rate peaks.
+     * @return Events arriving at a rate that rises and falls smoothly over each day.
+     */
+    static ArrivalProcess diurnal(final double meanEventsPerSecond,
+                                  final double peakToTroughRatio,
+                                  final double peakHourUtc) {
+        Utils.checkArgument(meanEventsPerSecond > 0, "meanEventsPerSecond must be > 0");
+        Utils.checkArgument(peakToTroughRatio >= 1, "peakToTroughRatio must be >= 1");
+        final double amplitude = (peakToTroughRatio - 1) / (peakToTroughRatio + 1);
+        final double peakMillis = peakHourUtc * 3_600_000;
+        return epochMillis -> {
+            final double dayFraction = Math.floorMod(epochMillis - (long) peakMillis, 86_400_000L) / 86_400_000.0;
+            return meanEventsPerSecond * (1 + amplitude * Math.cos(2 * Math.PI * dayFraction));
+        };
+    }
+
+    /**
+     * @return Events arriving in bursts on top of a Poisson process, see
+     * {@link #bursty(ArrivalProcess, double)}.
+     */
+    static ArrivalProcess bursty(final double meanEventsPerSecond, final double burstiness) {
+        return bursty(poisson(meanEventsPerSecond), burstiness);
+    }
+
+    /**
+     * @param baseProcess The underlying rate, e.g. a {@link #diurnal(double, double, double)} curve.
+     * @param burstiness  How strongly the rate varies, 0 for not at all. Around 0.5 gives busy
+     *                    spells of a few times the base rate, 1 and above gives rare but intense
+     *                    storms.
+     * @return Events arriving at the rate of baseProcess multiplied by a random factor that varies
+     * over every time scale from seconds to hours, so bursts occur within bursts as they do in real
+     * network and log traffic. The mean rate is that of baseProcess. The bursts fall at the same
+     * times on every run.
+     */
+    static ArrivalProcess bursty(final ArrivalProcess baseProcess, final double burstiness) {
+        return new BurstyArrivalProcess(baseProcess, burstiness);
+    }
+}
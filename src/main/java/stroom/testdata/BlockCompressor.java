@@ -0,0 +1,64 @@
+package stroom.testdata;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses a block of encoded records into a self contained unit such that the units for
+ * consecutive blocks can simply be concatenated, e.g. a gzip member or a zstd frame. This
+ * allows blocks to be compressed independently on many threads, as pigz does.
+ * <p>
+ * A zstd compressor can be plugged in by writing one zstd frame per block with a zstd library
+ * such as zstd-jni; the concatenated frames form a valid zstd stream.
+ * <p>
+ * Implementations must be thread safe.
+ */
+@FunctionalInterface
+public interface BlockCompressor {
+
+    /**
+     * Compresses the remaining bytes of block and writes them to outputStream.
+     */
+    void compress(ByteBuffer block, OutputStream outputStream) throws IOException;
+
+    /**
+     * @return A compressor that writes each block as a gzip member using the default
+     * compression level. Multi-member gzip files are read by gzip and {@link java.util.zip.GZIPInputStream}.
+     */
+    static BlockCompressor gzip() {
+        return gzip(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level The deflate compression level, 0-9 or -1 for the default.
+     * @return A compressor that writes each block as a gzip member.
+     */
+    static BlockCompressor gzip(final int level) {
+        Utils.checkArgument(level >= -1 && level <= 9, "level must be between -1 and 9");
+        return (block, outputStream) -> {
+            try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 64 * 1024) {
+                {
+                    def.setLevel(level);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // Finish the member and release the deflater but leave outputStream open
+                    finish();
+                    def.end();
+                }
+            }) {
+                if (block.hasArray()) {
+                    gzipOutputStream.write(block.array(), block.arrayOffset() + block.position(), block.remaining());
+                } else {
+                    final byte[] bytes = new byte[block.remaining()];
+                    block.duplicate().get(bytes);
+                    gzipOutputStream.write(bytes);
+                }
+            }
+        };
+    }
+}
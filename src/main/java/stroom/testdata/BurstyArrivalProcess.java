@@ -0,0 +1,74 @@
+package stroom.testdata;
+
+import java.util.Objects;
+
+/**
+ * Multiplies the rate of a base process by a multiplicative cascade, i.e. the product of
+ * independent random factors for each of a range of window sizes. Each factor is log-normal with
+ * a mean of one and is derived from a hash of the window, so it is the same on every call.
+ * <p>
+ * See {@link ArrivalProcess#bursty(ArrivalProcess, double)}.
+ */
+class BurstyArrivalProcess implements ArrivalProcess {
+
+    // 1 second up to about 3 hours
+    private static final long[] WINDOW_MILLIS = {1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L};
+    private static final long SALT = 0x6A09E667F3BCC909L;
+
+    private final ArrivalProcess baseProcess;
+    private final double sigma;
+
+    // Immutable so can be swapped without locking
+    private volatile CachedFactor cachedFactor = null;
+
+    BurstyArrivalProcess(final ArrivalProcess baseProcess, final double burstiness) {
+        Utils.checkArgument(burstiness >= 0, "burstiness must be >= 0");
+        this.baseProcess = Objects.requireNonNull(baseProcess);
+        this.sigma = burstiness;
+    }
+
+    @Override
+    public double getRate(final long epochMillis) {
+        return baseProcess.getRate(epochMillis) * getFactor(epochMillis);
+    }
+
+    private double getFactor(final long epochMillis) {
+        // The factor only changes from one smallest window to the next
+        final long windowNo = Math.floorDiv(epochMillis, WINDOW_MILLIS[0]);
+        CachedFactor cachedFactor = this.cachedFactor;
+        if (cachedFactor == null || cachedFactor.windowNo != windowNo) {
+            double factor = 1;
+            for (int scale = 0; scale < WINDOW_MILLIS.length; scale++) {
+                final long hash = GenerationContext.mixSeed(
+                        SALT + scale,
+                        Math.floorDiv(epochMillis, WINDOW_MILLIS[scale]));
+                // Log-normal with a mean of 1
+                factor *= Math.exp((sigma * toGaussian(hash)) - (sigma * sigma / 2));
+            }
+            cachedFactor = new CachedFactor(windowNo, factor);
+            this.cachedFactor = cachedFactor;
+        }
+        return cachedFactor.factor;
+    }
+
+    /**
+     * Box-Muller transform of the two halves of hash.
+     */
+    private static double toGaussian(final long hash) {
+        final double u1 = ((hash >>> 32) + 1) / 4_294_967_297.0;
+        final double u2 = (hash & 0xFFFFFFFFL) / 4_294_967_296.0;
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final class CachedFactor {
+        private final long windowNo;
+        private final double factor;
+
+        private CachedFactor(final long windowNo, final double factor) {
+            this.windowNo = windowNo;
+            this.factor = factor;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package stroom.testdata;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads a file written by a {@link ColumnarOutputConsumerBuilder} consumer a batch at a time,
+ * giving typed access to the values of each column without parsing any text, e.g.
+ * <pre>
+ * {@code
+ * try (ColumnarFileReader reader = ColumnarFileReader.open(file)) {
+ *     ColumnarFileReader.Batch batch;
+ *     while ((batch = reader.nextBatch()) != null) {
+ *         for (int row = 0; row < batch.getRowCount(); row++) {
+ *             long count = batch.getLong(1, row);
+ *         }
+ *     }
+ * }
+ * }
+ * </pre>
+ * Each batch is read into its own buffers, so a batch remains valid once the next is read.
+ */
+public final class ColumnarFileReader implements Closeable {
+
+    private final Path file;
+    private final FileChannel fileChannel;
+    private final List<Column> columns;
+    private long position = 0;
+    private boolean isEndOfStream = false;
+
+    private ColumnarFileReader(final Path file, final FileChannel fileChannel) throws IOException {
+        this.file = file;
+        this.fileChannel = fileChannel;
+
+        final byte[] magic = new byte[ColumnarOutputConsumerBuilder.MAGIC.length];
+        read(magic.length).get(magic);
+        if (!Arrays.equals(magic, ColumnarOutputConsumerBuilder.MAGIC)) {
+            throw new IOException("Not a columnar file: " + file.toAbsolutePath().normalize());
+        }
+        final int columnCount = read(4).getInt();
+        final List<Column> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            final ByteBuffer columnBuffer = read(5);
+            final ColumnarOutputConsumerBuilder.ColumnType type =
+                    ColumnarOutputConsumerBuilder.ColumnType.fromCode(columnBuffer.get());
+            final byte[] name = new byte[columnBuffer.getInt()];
+            read(name.length).get(name);
+            columns.add(new Column(new String(name, StandardCharsets.UTF_8), type));
+        }
+        skipPadding();
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Opens file and reads its columns.
+     */
+    public static ColumnarFileReader open(final Path file) throws IOException {
+        Objects.requireNonNull(file);
+        final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnarFileReader(file, fileChannel);
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return The next batch of rows or null if there are no more.
+     */
+    public Batch nextBatch() throws IOException {
+        if (isEndOfStream) {
+            return null;
+        }
+        final int rowCount = read(4).getInt();
+        skipPadding();
+        if (rowCount == 0) {
+            isEndOfStream = true;
+            return null;
+        }
+        final int bitmapLength = (rowCount + 7) / 8;
+        final ByteBuffer[] validity = new ByteBuffer[columns.size()];
+        final ByteBuffer[] values = new ByteBuffer[columns.size()];
+        final ByteBuffer[] offsets = new ByteBuffer[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            validity[i] = readPadded(bitmapLength);
+            switch (columns.get(i).getType()) {
+                case BOOL:
+                    values[i] = readPadded(bitmapLength);
+                    break;
+                case UTF8:
+                    offsets[i] = readPadded((rowCount + 1) * 4);
+                    values[i] = readPadded(offsets[i].getInt(rowCount * 4));
+                    break;
+                default:
+                    values[i] = read(rowCount * 8);
+            }
+        }
+        return new Batch(columns, rowCount, validity, values, offsets);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    private ByteBuffer readPadded(final int length) throws IOException {
+        final ByteBuffer byteBuffer = read(length);
+        skipPadding();
+        return byteBuffer;
+    }
+
+    private ByteBuffer read(final int length) throws IOException {
+        final ByteBuffer byteBuffer = ByteBuffer.allocate(length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        while (byteBuffer.hasRemaining()) {
+            if (fileChannel.read(byteBuffer) < 0) {
+                throw new EOFException("Unexpected end of columnar file: " + file.toAbsolutePath().normalize());
+            }
+        }
+        position += length;
+        byteBuffer.flip();
+        return byteBuffer;
+    }
+
+    private void skipPadding() throws IOException {
+        final int padding = (int) (-position & 7);
+        if (padding > 0) {
+            read(padding);
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The name and type of a column, from the field it was written from.
+     */
+    public static final class Column {
+        private final String name;
+        private final ColumnarOutputConsumerBuilder.ColumnType type;
+
+        private Column(final String name, final ColumnarOutputConsumerBuilder.ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ColumnarOutputConsumerBuilder.ColumnType getType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return name + ":" + type;
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The values of a batch of rows, held by column. Getting a value of the wrong type for its
+     * column throws an {@link IllegalArgumentException}. The value of a null is 0, false or null.
+     */
+    public static final class Batch {
+        private final List<Column> columns;
+        private final int rowCount;
+        private final ByteBuffer[] validity;
+        private final ByteBuffer[] values;
+        private final ByteBuffer[] offsets;
+
+        private Batch(final List<Column> columns,
+                      final int rowCount,
+                      final ByteBuffer[] validity,
+                      final ByteBuffer[] values,
+                      final ByteBuffer[] offsets) {
+            this.columns = columns;
+            this.rowCount = rowCount;
+            this.validity = validity;
+            this.values = values;
+            this.offsets = offsets;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public boolean isNull(final int column, final int row) {
+            return !isBitSet(validity[column], row);
+        }
+
+        /**
+         * @return The value of an INT64 or TIMESTAMP_* column, timestamps being epoch millis or
+         * micros.
+         */
+        public long getLong(final int column, final int row) {
+            final ColumnarOutputConsumerBuilder.ColumnType type = columns.get(column).getType();
+            Utils.checkArgument(type == ColumnarOutputConsumerBuilder.ColumnType.INT64
+                            || type == ColumnarOutputConsumerBuilder.ColumnType.TIMESTAMP_MILLIS
+                            || type == ColumnarOutputConsumerBuilder.ColumnType.TIMESTAMP_MICROS,
+                    "column {} is {}, not a long", column, type);
+            return values[column].getLong(checkRow(row) * 8);
+        }
+
+        /**
+         * @return The value of a FLOAT64 column.
+         */
+        public double getDouble(final int column, final int row) {
+            checkType(column, ColumnarOutputConsumerBuilder.ColumnType.FLOAT64);
+            return values[column].getDouble(checkRow(row) * 8);
+        }
+
+        /**
+         * @return The value of a BOOL column.
+         */
+        public boolean getBoolean(final int column, final int row) {
+            checkType(column, ColumnarOutputConsumerBuilder.ColumnType.BOOL);
+            return isBitSet(values[column], checkRow(row));
+        }
+
+        /**
+         * @return The value of a UTF8 column.
+         */
+        public String getString(final int column, final int row) {
+            checkType(column, ColumnarOutputConsumerBuilder.ColumnType.UTF8);
+            if (isNull(column, checkRow(row))) {
+                return null;
+            }
+            final int start = offsets[column].getInt(row * 4);
+            final int end = offsets[column].getInt((row + 1) * 4);
+            return new String(values[column].array(), start, end - start, StandardCharsets.UTF_8);
+        }
+
+        private void checkType(final int column, final ColumnarOutputConsumerBuilder.ColumnType expectedType) {
+            final ColumnarOutputConsumerBuilder.ColumnType type = columns.get(column).getType();
+            Utils.checkArgument(type == expectedType, "column {} is {}, not {}", column, type, expectedType);
+        }
+
+        private int checkRow(final int row) {
+            if (row < 0 || row >= rowCount) {
+                throw new IndexOutOfBoundsException(Utils.message("row {}, rowCount {}", row, rowCount));
+            }
+            return row;
+        }
+
+        private static boolean isBitSet(final ByteBuffer bitmap, final int row) {
+            return (bitmap.get(row >>> 3) & (1 << (row & 7))) != 0;
+        }
+    }
+}
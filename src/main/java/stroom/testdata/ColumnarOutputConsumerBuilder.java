@@ -0,0 +1,426 @@
+package stroom.testdata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Builds an {@link EncodedOutputConsumer} that writes the records to a file in a binary columnar
+ * layout, modelled on the Arrow IPC streaming format. Rows are buffered a batch at a time with the
+ * values of each column held together, so typed values are written as raw little endian numbers
+ * and are never turned into text. The data writer's encoder is not used.
+ * <p>
+ * The file is laid out as follows, with all numbers little endian and every part marked as padded
+ * followed by zero bytes up to a multiple of 8 bytes:
+ * <pre>
+ * "STDCOL01"                          8 byte magic
+ * int32 columnCount
+ * for each column:
+ *     int8  {@link ColumnType} code
+ *     int32 byte length of name
+ *     UTF-8 name                      padded after the last column
+ * for each batch:
+ *     int32 rowCount                  padded
+ *     for each column:
+ *         validity bitmap             (rowCount + 7) / 8 bytes, bit i set if row i is not null, padded
+ *         INT64, TIMESTAMP_*          rowCount int64 values
+ *         FLOAT64                     rowCount float64 values
+ *         BOOL                        bitmap as above, bit i set if row i is true, padded
+ *         UTF8                        rowCount + 1 int32 offsets into the data, padded,
+ *                                     then the UTF-8 data of all the rows, padded
+ * int32 0                             a batch of no rows marks the end, padded
+ * </pre>
+ * The columns are taken from the fields of the first record, so a run with no rows gives a file
+ * with no columns. Read the file back with {@link ColumnarFileReader}.
+ */
+public class ColumnarOutputConsumerBuilder {
+
+    static final byte[] MAGIC = "STDCOL01".getBytes(StandardCharsets.US_ASCII);
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private Path outputFile;
+    private int rowsPerBatch = 64 * 1024;
+
+    public static ColumnarOutputConsumerBuilder builder() {
+        return new ColumnarOutputConsumerBuilder();
+    }
+
+    /**
+     * The file to write to. Any existing file is overwritten.
+     */
+    public ColumnarOutputConsumerBuilder outputFile(final Path outputFile) {
+        this.outputFile = Objects.requireNonNull(outputFile);
+        return this;
+    }
+
+    /**
+     * The number of rows to buffer in each batch. Defaults to 65,536.
+     */
+    public ColumnarOutputConsumerBuilder rowsPerBatch(final int rowsPerBatch) {
+        Utils.checkArgument(rowsPerBatch > 0, "rowsPerBatch must be > 0");
+        this.rowsPerBatch = rowsPerBatch;
+        return this;
+    }
+
+    public EncodedOutputConsumer build() {
+        Objects.requireNonNull(outputFile, "outputFile must be set");
+        final Path outputFile = this.outputFile;
+        final int rowsPerBatch = this.rowsPerBatch;
+
+        return (encoder, recordStream) -> new BatchWriter(outputFile, rowsPerBatch).write(recordStream);
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The type of a column's values, written as its code in the schema.
+     */
+    public enum ColumnType {
+        UTF8(1),
+        INT64(2),
+        FLOAT64(3),
+        BOOL(4),
+        TIMESTAMP_MILLIS(5),
+        TIMESTAMP_MICROS(6);
+
+        private final int code;
+
+        ColumnType(final int code) {
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        static ColumnType fromCode(final int code) {
+            for (final ColumnType columnType : values()) {
+                if (columnType.code == code) {
+                    return columnType;
+                }
+            }
+            throw new IllegalArgumentException("Unknown column type code " + code);
+        }
+
+        /**
+         * @return The column type for the values of field. Fields that hold their values as longs
+         * but render them as text, e.g. IP addresses, are written as UTF8.
+         */
+        static ColumnType of(final Field field) {
+            switch (field.getValueSlot()) {
+                case DOUBLE:
+                    return FLOAT64;
+                case LONG:
+                    switch (field.getType()) {
+                        case LONG:
+                            return field.isDecimal() ? INT64 : UTF8;
+                        case BOOLEAN:
+                            return BOOL;
+                        case EPOCH_MILLIS:
+                            return TIMESTAMP_MILLIS;
+                        case EPOCH_MICROS:
+                            return TIMESTAMP_MICROS;
+                        default:
+                            return UTF8;
+                    }
+                default:
+                    return UTF8;
+            }
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Buffers the rows of a batch by column and writes each batch once it is full.
+     */
+    private static class BatchWriter {
+
+        private final Path outputFile;
+        private final int rowsPerBatch;
+        private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        private FileChannel fileChannel;
+        private long position = 0;
+        private Column[] columns = null;
+        private int rowsInBatch = 0;
+
+        private BatchWriter(final Path outputFile, final int rowsPerBatch) {
+            this.outputFile = outputFile;
+            this.rowsPerBatch = rowsPerBatch;
+        }
+
+        private void write(final Stream<Record> recordStream) {
+            try (final FileChannel fileChannel = FileChannel.open(
+                    outputFile,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                this.fileChannel = fileChannel;
+                putBytes(MAGIC);
+
+                final Iterator<Record> recordIterator = recordStream.iterator();
+                while (recordIterator.hasNext()) {
+                    final Record record = recordIterator.next();
+                    if (columns == null) {
+                        writeSchema(record.getFieldDefinitions());
+                    }
+                    for (int i = 0; i < columns.length; i++) {
+                        columns[i].add(record, i, rowsInBatch);
+                    }
+                    rowsInBatch++;
+                    if (rowsInBatch == rowsPerBatch) {
+                        writeBatch();
+                    }
+                }
+                if (columns == null) {
+                    writeSchema(Collections.emptyList());
+                }
+                if (rowsInBatch > 0) {
+                    writeBatch();
+                }
+                // End of stream
+                putInt(0);
+                pad();
+                flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to file "
+                        + outputFile.toAbsolutePath().normalize().toString()
+                        + ": " + e.getMessage(), e);
+            }
+        }
+
+        private void writeSchema(final List<Field> fields) throws IOException {
+            columns = new Column[fields.size()];
+            putInt(fields.size());
+            for (int i = 0; i < columns.length; i++) {
+                final Field field = fields.get(i);
+                final ColumnType columnType = ColumnType.of(field);
+                columns[i] = columnType == ColumnType.UTF8
+                        ? new Utf8Column(rowsPerBatch)
+                        : new FixedColumn(columnType, rowsPerBatch);
+                final byte[] nameBytes = field.getName().getBytes(StandardCharsets.UTF_8);
+                putByte((byte) columnType.getCode());
+                putInt(nameBytes.length);
+                putBytes(nameBytes);
+            }
+            pad();
+        }
+
+        private void writeBatch() throws IOException {
+            putInt(rowsInBatch);
+            pad();
+            for (final Column column : columns) {
+                putBytes(column.validity, 0, getBitmapLength(rowsInBatch));
+                pad();
+                column.write(this, rowsInBatch);
+                column.reset();
+            }
+            rowsInBatch = 0;
+        }
+
+        private void putByte(final byte value) throws IOException {
+            ensureRemaining(1);
+            writeBuffer.put(value);
+            position++;
+        }
+
+        private void putInt(final int value) throws IOException {
+            ensureRemaining(4);
+            writeBuffer.putInt(value);
+            position += 4;
+        }
+
+        private void putLong(final long value) throws IOException {
+            ensureRemaining(8);
+            writeBuffer.putLong(value);
+            position += 8;
+        }
+
+        private void putBytes(final byte[] bytes) throws IOException {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        private void putBytes(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (length > writeBuffer.capacity()) {
+                flush();
+                writeFully(ByteBuffer.wrap(bytes, offset, length));
+            } else {
+                ensureRemaining(length);
+                writeBuffer.put(bytes, offset, length);
+            }
+            position += length;
+        }
+
+        private void putBytes(final Utf8Buffer utf8Buffer) throws IOException {
+            flush();
+            writeFully(utf8Buffer.asByteBuffer());
+            position += utf8Buffer.size();
+        }
+
+        /**
+         * Writes zeros up to the next multiple of 8 bytes.
+         */
+        private void pad() throws IOException {
+            while ((position & 7) != 0) {
+                putByte((byte) 0);
+            }
+        }
+
+        private void ensureRemaining(final int length) throws IOException {
+            if (writeBuffer.remaining() < length) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            writeBuffer.flip();
+            writeFully(writeBuffer);
+            writeBuffer.clear();
+        }
+
+        private void writeFully(final ByteBuffer byteBuffer) throws IOException {
+            while (byteBuffer.hasRemaining()) {
+                fileChannel.write(byteBuffer);
+            }
+        }
+    }
+
+    private static int getBitmapLength(final int rowCount) {
+        return (rowCount + 7) / 8;
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private abstract static class Column {
+        final byte[] validity;
+
+        Column(final int rowsPerBatch) {
+            this.validity = new byte[getBitmapLength(rowsPerBatch)];
+        }
+
+        abstract void add(Record record, int index, int row);
+
+        abstract void write(BatchWriter batchWriter, int rowCount) throws IOException;
+
+        void reset() {
+            Arrays.fill(validity, (byte) 0);
+        }
+
+        static void setBit(final byte[] bitmap, final int row) {
+            bitmap[row >>> 3] |= (byte) (1 << (row & 7));
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * A column of 8 byte values, or bits for {@link ColumnType#BOOL}.
+     */
+    private static final class FixedColumn extends Column {
+        private final ColumnType columnType;
+        private final long[] values;
+
+        private FixedColumn(final ColumnType columnType, final int rowsPerBatch) {
+            super(rowsPerBatch);
+            this.columnType = columnType;
+            this.values = new long[rowsPerBatch];
+        }
+
+        @Override
+        void add(final Record record, final int index, final int row) {
+            if (record.isLong(index)) {
+                values[row] = record.getLong(index);
+            } else if (record.isDouble(index)) {
+                values[row] = Double.doubleToRawLongBits(record.getDouble(index));
+            } else {
+                // Only records made outside a run hold numbers as strings
+                final String value = record.getValue(index);
+                if (value == null) {
+                    values[row] = 0;
+                    return;
+                }
+                switch (columnType) {
+                    case FLOAT64:
+                        values[row] = Double.doubleToRawLongBits(Double.parseDouble(value));
+                        break;
+                    case BOOL:
+                        values[row] = Boolean.parseBoolean(value) ? 1 : 0;
+                        break;
+                    default:
+                        values[row] = Long.parseLong(value);
+                }
+            }
+            setBit(validity, row);
+        }
+
+        @Override
+        void write(final BatchWriter batchWriter, final int rowCount) throws IOException {
+            if (columnType == ColumnType.BOOL) {
+                final byte[] bits = new byte[getBitmapLength(rowCount)];
+                for (int row = 0; row < rowCount; row++) {
+                    if (values[row] != 0) {
+                        setBit(bits, row);
+                    }
+                }
+                batchWriter.putBytes(bits);
+                batchWriter.pad();
+            } else {
+                for (int row = 0; row < rowCount; row++) {
+                    batchWriter.putLong(values[row]);
+                }
+            }
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * A column of UTF-8 text, encoded straight from the record into one buffer for the batch.
+     */
+    private static final class Utf8Column extends Column {
+        private final int[] offsets;
+        private final Utf8Buffer data = new Utf8Buffer();
+
+        private Utf8Column(final int rowsPerBatch) {
+            super(rowsPerBatch);
+            this.offsets = new int[rowsPerBatch + 1];
+        }
+
+        @Override
+        void add(final Record record, final int index, final int row) {
+            if (record.isLong(index) || record.isDouble(index) || record.getValue(index) != null) {
+                record.appendValue(index, data);
+                setBit(validity, row);
+            }
+            offsets[row + 1] = data.size();
+        }
+
+        @Override
+        void write(final BatchWriter batchWriter, final int rowCount) throws IOException {
+            for (int row = 0; row <= rowCount; row++) {
+                batchWriter.putInt(offsets[row]);
+            }
+            batchWriter.pad();
+            batchWriter.putBytes(data);
+            batchWriter.pad();
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            data.reset();
+        }
+    }
+}
@@ -5,31 +5,45 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
-import java.util.Random;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.function.IntSupplier;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Class for generating test data by constructing field definitions. Each {@link Field} definition
@@ -38,14 +52,16 @@ import java.util.stream.Stream;
  */
 public class DataGenerator {
 
-    // These are all statics owing to the fact that the field definitions are all created by static
-    // methods.  Need to refactor them to be methods on some sort of builder that can have these things
-    // made available to them.
-    // Use a consistent random generator for all fields, so the generated data should be repeatable
-    // if a seed is provided.
-    private static volatile Random RANDOM = null;
-    private static volatile Faker FAKER = null;
-    private static volatile Locale LOCALE = null;
+    // The number of rows generated in parallel before they are handed on in order to the writer
+    private static final int PARALLEL_CHUNK_SIZE = 10_000;
+
+    // The number of encoded bytes to accumulate before writing them out
+    private static final int ENCODED_WRITE_BUFFER_SIZE = 64 * 1024;
+
+    // The number of bytes of a file to memory map at a time
+    private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+
+    private static final Pattern WHITE_SPACE_PATTERN = Pattern.compile("\\s+");
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataGenerator.class);
 
@@ -118,6 +134,187 @@ public class DataGenerator {
         };
     }
 
+    /**
+     * See {@link #getEncodedFileOutputConsumer(Path, String)}
+     * @param filePath  The path of the file to write, any parent directories will be created.
+     * @return A pre-canned consumer that writes the encoded records to the file at filePath
+     */
+    public static EncodedOutputConsumer getEncodedFileOutputConsumer(final Path filePath) {
+        Objects.requireNonNull(filePath);
+
+        return getEncodedFileOutputConsumer(filePath, "\n");
+    }
+
+    /**
+     * Produces the same file content as {@link #getFileOutputConsumer(Path, String)} but
+     * encodes records straight to UTF-8 bytes, without creating a string for each one.
+     * Requires the data writer to be an {@link EncodingDataWriter}.
+     * @param filePath  The path of the file to write, any parent directories will be created.
+     * @param recordSeparator The string to separate records with
+     * @return A pre-canned consumer that writes the encoded records to the file at filePath
+     */
+    public static EncodedOutputConsumer getEncodedFileOutputConsumer(final Path filePath,
+                                                                     final String recordSeparator) {
+        Objects.requireNonNull(filePath);
+        Objects.requireNonNull(recordSeparator);
+
+        ensureDirectories(filePath);
+
+        return (encoder, recordStream) -> {
+            try (final OutputStream outputStream = new FileOutputStream(filePath.toFile(), true)) {
+                writeEncodedRows(encoder, recordStream, recordSeparator, outputStream);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to file "
+                        + filePath.toAbsolutePath().normalize().toString() + ": "
+                        + e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * @param outputStream The stream to write to. It will be flushed but not closed.
+     * @param recordSeparator The string to separate records with
+     * @return A pre-canned consumer that writes the encoded records to outputStream
+     */
+    public static EncodedOutputConsumer getEncodedOutputStreamConsumer(final OutputStream outputStream,
+                                                                       final String recordSeparator) {
+        Objects.requireNonNull(outputStream);
+        Objects.requireNonNull(recordSeparator);
+
+        return (encoder, recordStream) -> {
+            try {
+                writeEncodedRows(encoder, recordStream, recordSeparator, outputStream);
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to output stream: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * See {@link #getParallelFileOutputConsumer(Path, String, int)}
+     * @param filePath  The path of the file to write, any parent directories will be created.
+     * @return A pre-canned consumer that writes the encoded records to the file at filePath
+     */
+    public static EncodedOutputConsumer getParallelFileOutputConsumer(final Path filePath) {
+        return getParallelFileOutputConsumer(filePath, "\n", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Produces the same file content as {@link #getEncodedFileOutputConsumer(Path, String)} but
+     * takes the records in chunks and encodes each chunk on one of threadCount worker threads.
+     * The encoded chunks are written to the file in row order. Combine with
+     * {@link DefinitionBuilder#multiThreaded()} so the records are also generated in parallel.
+     * Requires the data writer to be an {@link EncodingDataWriter}.
+     * @param filePath  The path of the file to write, any parent directories will be created.
+     * @param recordSeparator The string to separate records with
+     * @param threadCount The number of threads to encode records on
+     * @return A pre-canned consumer that writes the encoded records to the file at filePath
+     */
+    public static EncodedOutputConsumer getParallelFileOutputConsumer(final Path filePath,
+                                                                      final String recordSeparator,
+                                                                      final int threadCount) {
+        Objects.requireNonNull(filePath);
+        Objects.requireNonNull(recordSeparator);
+
+        ensureDirectories(filePath);
+
+        return new ParallelFileOutputConsumer(
+                filePath,
+                recordSeparator,
+                ParallelFileOutputConsumer.DEFAULT_CHUNK_SIZE,
+                threadCount);
+    }
+
+    /**
+     * See {@link #getCompressedFileOutputConsumer(Path, String, BlockCompressor, int)}
+     * @param filePath  The path of the file to write, any parent directories will be created.
+     * @param blockCompressor The compressor for each block of records, e.g. {@link BlockCompressor#gzip()}
+     * @return A pre-canned consumer that writes the compressed records to the file at filePath
+     */
+    public static EncodedOutputConsumer getCompressedFileOutputConsumer(final Path filePath,
+                                                                        final BlockCompressor blockCompressor) {
+        return getCompressedFileOutputConsumer(
+                filePath, "\n", blockCompressor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * As {@link #getParallelFileOutputConsumer(Path, String, int)} but each chunk of records is
+     * also compressed on the worker thread as an independent block, e.g. a gzip member, and
+     * the compressed blocks are concatenated in row order. The header and footer rows are
+     * compressed as blocks of their own.
+     * @param filePath  The path of the file to write, any parent directories will be created.
+     * @param recordSeparator The string to separate records with
+     * @param blockCompressor The compressor for each block of records, e.g. {@link BlockCompressor#gzip()}
+     * @param threadCount The number of threads to encode and compress records on
+     * @return A pre-canned consumer that writes the compressed records to the file at filePath
+     */
+    public static EncodedOutputConsumer getCompressedFileOutputConsumer(final Path filePath,
+                                                                        final String recordSeparator,
+                                                                        final BlockCompressor blockCompressor,
+                                                                        final int threadCount) {
+        Objects.requireNonNull(filePath);
+        Objects.requireNonNull(recordSeparator);
+        Objects.requireNonNull(blockCompressor);
+
+        ensureDirectories(filePath);
+
+        return new ParallelFileOutputConsumer(
+                filePath,
+                recordSeparator,
+                ParallelFileOutputConsumer.DEFAULT_CHUNK_SIZE,
+                threadCount,
+                blockCompressor);
+    }
+
+    /**
+     * See {@link #getMappedFileOutputConsumer(Path, String, long)}
+     * @param filePath  The path of the file to write, any parent directories will be created.
+     * @return A pre-canned consumer that writes the encoded records to the file at filePath
+     */
+    public static EncodedOutputConsumer getMappedFileOutputConsumer(final Path filePath) {
+        return getMappedFileOutputConsumer(filePath, "\n", MAPPED_REGION_SIZE);
+    }
+
+    /**
+     * Produces the same file content as {@link #getEncodedFileOutputConsumer(Path, String)} but
+     * writes through memory mapped regions of the file, growing the file a region at a time and
+     * truncating it to size at the end. Best suited to very large files on local disks.
+     * Requires the data writer to be an {@link EncodingDataWriter}.
+     * @param filePath  The path of the file to write, any parent directories will be created.
+     * @param recordSeparator The string to separate records with
+     * @param regionSize The number of bytes to map at a time
+     * @return A pre-canned consumer that writes the encoded records to the file at filePath
+     */
+    public static EncodedOutputConsumer getMappedFileOutputConsumer(final Path filePath,
+                                                                    final String recordSeparator,
+                                                                    final long regionSize) {
+        Objects.requireNonNull(filePath);
+        Objects.requireNonNull(recordSeparator);
+        Utils.checkArgument(regionSize > 0 && regionSize <= Integer.MAX_VALUE,
+                "regionSize must be > 0 and <= {}", Integer.MAX_VALUE);
+
+        ensureDirectories(filePath);
+
+        return (encoder, recordStream) -> {
+            try (final FileChannel fileChannel = FileChannel.open(
+                    filePath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+                 // Append to any existing content, as the other file consumers do
+                 final MappedFileOutputStream outputStream = new MappedFileOutputStream(
+                         fileChannel, fileChannel.size(), regionSize)) {
+
+                writeEncodedRows(encoder, recordStream, recordSeparator, outputStream);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to file "
+                        + filePath.toAbsolutePath().normalize().toString() + ": "
+                        + e.getMessage(), e);
+            }
+        };
+    }
+
     /**
      * Uses java-faker to produce values of various types.
      * See https://github.com/DiUS/java-faker
@@ -135,9 +332,9 @@ public class DataGenerator {
             Objects.requireNonNull(name);
             Objects.requireNonNull(fakerFunction);
 
-            final Supplier<String> supplier = () ->
-                    fakerFunction.apply(FAKER);
-            return new Field(name, supplier);
+            final Function<GenerationContext, String> valueFunction = context ->
+                    fakerFunction.apply(context.getFaker());
+            return new Field(name, valueFunction);
         } catch (Exception e) {
             throw new RuntimeException(
                     Utils.message("Error building fakerField, {}, {}", name, e.getMessage()), e);
@@ -158,9 +355,11 @@ public class DataGenerator {
             Utils.checkArgument(!values.isEmpty(), "values is empty");
             final AtomicLoopedIntegerSequence indexSequence = new AtomicLoopedIntegerSequence(0, values.size());
 
-            final Supplier<String> supplier = () ->
-                    values.get(indexSequence.getNext());
-            return new Field(name, supplier);
+            final Function<GenerationContext, String> valueFunction = context ->
+                    values.get(context.isRowSeeded()
+                            ? (int) ((context.getRowNumber() - 1) % values.size())
+                            : indexSequence.getNext());
+            return new Field(name, valueFunction);
         } catch (Exception e) {
             throw new RuntimeException(Utils.message(
                     "Error building sequentialValueField, {},{}",
@@ -168,6 +367,26 @@ public class DataGenerator {
         }
     }
 
+    /**
+     * Stateful value supplier that supplies a value from the lines of valuesFile in sequential
+     * order looping back to the beginning when it gets to the end. The file is memory-mapped
+     * rather than read onto the heap, see {@link MappedValueList}.
+     *
+     * @param name          Field name for use in the header
+     * @param valuesFile    A UTF-8 file with one value per line
+     * @return A complete {@link Field}
+     */
+    public static Field sequentialValueField(final String name, final Path valuesFile) {
+        final MappedValueList values;
+        try {
+            values = MappedValueList.of(valuesFile);
+        } catch (Exception e) {
+            throw new RuntimeException(Utils.message(
+                    "Error building sequentialValueField, {}, {}", name, e.getMessage()), e);
+        }
+        return sequentialValueField(name, values);
+    }
+
     /**
      * {@link Field} that supplies a random value from values on each call to getNext()
      * @param name      Field name for use in the header
@@ -178,9 +397,57 @@ public class DataGenerator {
         try {
             Objects.requireNonNull(values);
             Utils.checkArgument(!values.isEmpty(), "values is empty");
-            final Supplier<String> supplier = () ->
-                    values.get(RANDOM.nextInt(values.size()));
-            return new Field(name, supplier);
+            final Function<GenerationContext, String> valueFunction = context ->
+                    values.get(context.getRandom().nextInt(values.size()));
+            return new Field(name, valueFunction);
+        } catch (Exception e) {
+            throw new RuntimeException(
+                    Utils.message("Error building randomValueField, {}, {}", name, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * {@link Field} that supplies a random value from the lines of valuesFile on each call to
+     * getNext(). The file is memory-mapped rather than read onto the heap, see
+     * {@link MappedValueList}.
+     * @param name          Field name for use in the header
+     * @param valuesFile    A UTF-8 file with one value per line
+     * @return A complete {@link Field}
+     */
+    public static Field randomValueField(final String name, final Path valuesFile) {
+        final MappedValueList values;
+        try {
+            values = MappedValueList.of(valuesFile);
+        } catch (Exception e) {
+            throw new RuntimeException(
+                    Utils.message("Error building randomValueField, {}, {}", name, e.getMessage()), e);
+        }
+        return randomValueField(name, values);
+    }
+
+    /**
+     * {@link Field} that supplies a random value from values on each call to getNext(), choosing
+     * each value as often as distribution says, e.g. {@link ValueDistribution#zipfian(int, double)}
+     * so a few values make up most of the data.
+     * @param name          Field name for use in the header
+     * @param values        The values to randomly select from when delivering values
+     * @param distribution  How often to select each value, by its index in values. Its size must
+     *                      match the size of values.
+     * @return A complete {@link Field}
+     */
+    public static Field randomValueField(final String name,
+                                         final List<String> values,
+                                         final ValueDistribution distribution) {
+        try {
+            Objects.requireNonNull(values);
+            Objects.requireNonNull(distribution);
+            Utils.checkArgument(!values.isEmpty(), "values is empty");
+            Utils.checkArgument(distribution.getSize() == values.size(),
+                    "distribution size {} does not match values size {}",
+                    distribution.getSize(), values.size());
+            final Function<GenerationContext, String> valueFunction = context ->
+                    values.get(distribution.nextIndex(context.getRandom()));
+            return new Field(name, valueFunction);
         } catch (Exception e) {
             throw new RuntimeException(
                     Utils.message("Error building randomValueField, {}, {}", name, e.getMessage()), e);
@@ -224,11 +491,11 @@ public class DataGenerator {
         Objects.requireNonNull(codePoints);
         Utils.checkArgument(!codePoints.isEmpty(), "codePoints is empty");
         try {
-            final Supplier<String> supplier = () -> {
-                final int codePoint = codePoints.get(RANDOM.nextInt(codePoints.size()));
-                return new StringBuilder().appendCodePoint(codePoint).toString();
-            };
-            return new Field(name, supplier);
+            return Field.ofLong(
+                    name,
+                    FieldType.STRING,
+                    context -> codePoints.get(context.getRandom().nextInt(codePoints.size())),
+                    DataGenerator::renderCodePoint);
         } catch (Exception e) {
             throw new RuntimeException(
                     Utils.message("Error building randomEmojiField, {}, {}", name, e.getMessage()), e);
@@ -240,11 +507,11 @@ public class DataGenerator {
                                          final int maxCodePoint) {
         final int range = maxCodePoint - minCodePoint;
         try {
-            final Supplier<String> supplier = () -> {
-                final int codePoint = RANDOM.nextInt(range) + minCodePoint;
-                return new StringBuilder().appendCodePoint(codePoint).toString();
-            };
-            return new Field(name, supplier);
+            return Field.ofLong(
+                    name,
+                    FieldType.STRING,
+                    context -> context.getRandom().nextInt(range) + minCodePoint,
+                    DataGenerator::renderCodePoint);
         } catch (Exception e) {
             throw new RuntimeException(
                     Utils.message("Error building randomEmojiField, {}, {}", name, e.getMessage()), e);
@@ -252,6 +519,10 @@ public class DataGenerator {
     }
 
     /**
+     * Returns numbered values where the value is defined by a format and the number is random.
+     * Formats using only a %s or %d placeholder, with an optional width and '-' or '0' flag, are
+     * compiled once rather than parsed for every value.
+     *
      * @param name         Field name for use in the header
      * @param format       {@link String#format} compatible format containing a single
      *                     placeholder, e.g. "user-%s" or "user-%03d"
@@ -266,9 +537,11 @@ public class DataGenerator {
             Objects.requireNonNull(format);
             Utils.checkArgument(maxNumberExc > 0, "maxNumberExc must be > 0");
 
-            final Supplier<String> supplier = () ->
-                    String.format(format, RANDOM.nextInt(maxNumberExc));
-            return new Field(name, supplier);
+            return Field.ofLong(
+                    name,
+                    FieldType.STRING,
+                    context -> context.getRandom().nextInt(maxNumberExc),
+                    buildNumberFormatRenderer(format));
         } catch (Exception e) {
             throw new RuntimeException(Utils.message(
                     "Error building randomNumberedValueField, {}, {}", name, e.getMessage()), e);
@@ -277,7 +550,8 @@ public class DataGenerator {
 
     /**
      * Returns numbered values where the value is defined by a format and the number increases
-     * sequentially and loops back round when it hits endEx.
+     * sequentially and loops back round when it hits endEx. Formats are compiled once where
+     * possible, as for {@link #randomNumberedValueField(String, String, int)}.
      *
      * @param name     Field name for use in the header
      * @param format   {@link String#format} compatible format containing a single
@@ -298,10 +572,11 @@ public class DataGenerator {
                     startInc,
                     endExc);
 
-            final Supplier<String> supplier = () ->
-                    String.format(format, numberSequence.getNext());
-
-            return new Field(name, supplier);
+            return Field.ofLong(
+                    name,
+                    FieldType.STRING,
+                    context -> nextSequenceValue(context, numberSequence, startInc, endExc),
+                    buildNumberFormatRenderer(format));
         } catch (Exception e) {
             throw new RuntimeException(Utils.message(
                     "Error building sequentiallyNumberedValueField, {}, {}", name, e.getMessage()), e);
@@ -326,10 +601,9 @@ public class DataGenerator {
                     startInc,
                     endExc);
 
-            final Supplier<String> supplier = () ->
-                    Long.toString(numberSequence.getNext());
-
-            return new Field(name, supplier);
+            return Field.ofLong(
+                    name,
+                    context -> nextSequenceValue(context, numberSequence, startInc, endExc));
         } catch (Exception e) {
             throw new RuntimeException(Utils.message(
                     "Error building sequentialValueField, {}, {}", name, e.getMessage()), e);
@@ -351,9 +625,11 @@ public class DataGenerator {
         try {
             Utils.checkArgument(endExc > startInc, "endExc must be > startInc");
 
-            return new Field(
+            final ToIntFunction<GenerationContext> randomNumberFunction =
+                    buildRandomNumberFunction(startInc, endExc);
+            return Field.ofLong(
                     name,
-                    () -> Integer.toString(buildRandomNumberSupplier(startInc, endExc).getAsInt()));
+                    randomNumberFunction::applyAsInt);
         } catch (Exception e) {
             throw new RuntimeException(Utils.message(
                     "Error building sequentialValueField, {}, {}", name, e.getMessage()), e);
@@ -368,15 +644,24 @@ public class DataGenerator {
     public static Field randomIpV4Field(final String name) {
 
         try {
-            final IntSupplier intSupplier = buildRandomNumberSupplier(0, 256);
-
-            final Supplier<String> supplier = () ->
-                    String.format("%d.%d.%d.%d",
-                            intSupplier.getAsInt(),
-                            intSupplier.getAsInt(),
-                            intSupplier.getAsInt(),
-                            intSupplier.getAsInt());
-            return new Field(name, supplier);
+            final ToIntFunction<GenerationContext> randomNumberFunction = buildRandomNumberFunction(0, 256);
+
+            // Held as the 32 bit address and only rendered as dotted decimal when needed
+            return Field.ofLong(
+                    name,
+                    FieldType.STRING,
+                    context -> ((long) randomNumberFunction.applyAsInt(context) << 24)
+                            | ((long) randomNumberFunction.applyAsInt(context) << 16)
+                            | ((long) randomNumberFunction.applyAsInt(context) << 8)
+                            | randomNumberFunction.applyAsInt(context),
+                    (address, stringBuilder) -> stringBuilder
+                            .append((address >>> 24) & 0xFF)
+                            .append('.')
+                            .append((address >>> 16) & 0xFF)
+                            .append('.')
+                            .append((address >>> 8) & 0xFF)
+                            .append('.')
+                            .append(address & 0xFF));
         } catch (Exception e) {
             throw new RuntimeException(Utils.message(
                     "Error building randomIpV4Field, {}, {}", name, e.getMessage()), e);
@@ -434,17 +719,25 @@ public class DataGenerator {
             final long millisBetween = endDateExc.toInstant(ZoneOffset.UTC).toEpochMilli()
                     - startDateInc.toInstant(ZoneOffset.UTC).toEpochMilli();
 
-            final Supplier<String> supplier = () -> {
-                try {
-                    final long randomDelta = (long) (RANDOM.nextDouble() * millisBetween);
-                    final LocalDateTime dateTime = startDateInc.plus(randomDelta, ChronoUnit.MILLIS);
-                    return dateTime.format(formatter);
-                } catch (Exception e) {
-                    throw new RuntimeException(Utils.message("Time range is too large, maximum allowed: {}",
-                            Duration.ofMillis(Integer.MAX_VALUE).toString()), e);
-                }
-            };
-            return new Field(name, supplier);
+            final long startMillis = startDateInc.toInstant(ZoneOffset.UTC).toEpochMilli();
+
+            return Field.ofLong(
+                    name,
+                    FieldType.EPOCH_MILLIS,
+                    context -> {
+                        final long randomDelta = (long) (context.getRandom().nextDouble() * millisBetween);
+                        return startMillis + randomDelta;
+                    },
+                    (epochMillis, stringBuilder) -> {
+                        try {
+                            formatter.formatTo(
+                                    LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC),
+                                    stringBuilder);
+                        } catch (Exception e) {
+                            throw new RuntimeException(Utils.message("Error formatting {}: {}",
+                                    epochMillis, e.getMessage()), e);
+                        }
+                    });
         } catch (Exception e) {
             throw new RuntimeException(Utils.message("Error building randomDateTimeField, {}, {}", name, e.getMessage()), e);
         }
@@ -487,23 +780,187 @@ public class DataGenerator {
                                                 final Duration delta,
                                                 final DateTimeFormatter formatter) {
         try {
+            Objects.requireNonNull(startDateInc);
+            Objects.requireNonNull(delta);
+            Objects.requireNonNull(formatter);
+
+            if (startDateInc.getNano() % 1_000_000 == 0 && delta.getNano() % 1_000_000 == 0) {
+                // Whole millis so can be held as epoch millis, only creating a date to format it
+                final long startMillis = startDateInc.toInstant(ZoneOffset.UTC).toEpochMilli();
+                final long deltaMillis = delta.toMillis();
+                final AtomicLong lastValue = new AtomicLong(startMillis);
+                return Field.ofLong(
+                        name,
+                        FieldType.EPOCH_MILLIS,
+                        context -> context.isRowSeeded()
+                                ? Math.addExact(startMillis,
+                                        Math.multiplyExact(deltaMillis, context.getRowNumber() - 1))
+                                : lastValue.getAndAdd(deltaMillis),
+                        (epochMillis, stringBuilder) -> {
+                            try {
+                                formatter.formatTo(
+                                        LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC),
+                                        stringBuilder);
+                            } catch (Exception e) {
+                                throw new RuntimeException(Utils.message("Error formatting {}: {}",
+                                        epochMillis, e.getMessage()), e);
+                            }
+                        });
+            }
+
             final AtomicReference<LocalDateTime> lastValueRef = new AtomicReference<>(startDateInc);
 
-            final Supplier<String> supplier = () -> {
+            final Function<GenerationContext, String> valueFunction = context -> {
                 try {
-                    return lastValueRef.getAndUpdate(lastVal -> lastVal.plus(delta))
-                            .format(formatter);
+                    final LocalDateTime dateTime = context.isRowSeeded()
+                            ? startDateInc.plus(delta.multipliedBy(context.getRowNumber() - 1))
+                            : lastValueRef.getAndUpdate(lastVal -> lastVal.plus(delta));
+                    return dateTime.format(formatter);
                 } catch (Exception e) {
-                    throw new RuntimeException(Utils.message("Time range is too large, maximum allowed: {}",
-                            Duration.ofMillis(Integer.MAX_VALUE).toString()));
+                    throw new RuntimeException(Utils.message("Error generating date time for row {}: {}",
+                            context.getRowNumber(), e.getMessage()), e);
                 }
             };
-            return new Field(name, supplier);
+            return new Field(name, valueFunction);
         } catch (Exception e) {
             throw new RuntimeException(Utils.message("Error building sequentialDateTimeField, {}, {}", name, e.getMessage()), e);
         }
     }
 
+    /**
+     * A field to produce random timestamps within a defined time range, held as epoch millis or
+     * micros to suit format. Faster than {@link #randomDateTimeField(String, LocalDateTime,
+     * LocalDateTime, DateTimeFormatter)} as no date objects are created for each value.
+     *
+     * @param name     Field name for use in the header
+     * @param startInc The start of the random times (inclusive)
+     * @param endExc   The end of the random times (exclusive)
+     * @param format   The {@link TimestampFormat} to render the values with, which should not be
+     *                 shared with other fields.
+     * @return A complete {@link Field}
+     */
+    public static Field randomTimestampField(final String name,
+                                             final Instant startInc,
+                                             final Instant endExc,
+                                             final TimestampFormat format) {
+        try {
+            Objects.requireNonNull(startInc);
+            Objects.requireNonNull(endExc);
+            Objects.requireNonNull(format);
+            Utils.checkArgument(
+                    endExc.isAfter(startInc),
+                    "endExc [{}] must be after startInc [{}]",
+                    endExc,
+                    startInc);
+
+            final long startValue = toEpochValue(startInc, format);
+            final long range = Math.subtractExact(toEpochValue(endExc, format), startValue);
+            Utils.checkArgument(range > 0, "endExc [{}] must be at least one {} after startInc [{}]",
+                    endExc, format.getPrecision(), startInc);
+
+            return Field.ofLong(
+                    name,
+                    format.getFieldType(),
+                    context -> startValue + context.getRandom().nextLong(range),
+                    format);
+        } catch (Exception e) {
+            throw new RuntimeException(Utils.message(
+                    "Error building randomTimestampField, {}, {}", name, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * A field to produce timestamps with a constant delta from a start time, held as epoch millis
+     * or micros to suit format. Faster than {@link #sequentialDateTimeField(String, LocalDateTime,
+     * Duration, DateTimeFormatter)} as no date objects are created for each value. Any part of
+     * startInc or delta finer than the precision of format is dropped.
+     *
+     * @param name     Field name for use in the header
+     * @param startInc The first timestamp
+     * @param delta    The delta to apply to successive values
+     * @param format   The {@link TimestampFormat} to render the values with, which should not be
+     *                 shared with other fields.
+     * @return A complete {@link Field}
+     */
+    public static Field sequentialTimestampField(final String name,
+                                                 final Instant startInc,
+                                                 final Duration delta,
+                                                 final TimestampFormat format) {
+        try {
+            Objects.requireNonNull(startInc);
+            Objects.requireNonNull(delta);
+            Objects.requireNonNull(format);
+
+            final long startValue = toEpochValue(startInc, format);
+            final long deltaValue = format.getPrecision() == ChronoUnit.MICROS
+                    ? Math.addExact(Math.multiplyExact(delta.getSeconds(), 1_000_000L), delta.getNano() / 1_000)
+                    : delta.toMillis();
+            final AtomicLong lastValue = new AtomicLong(startValue);
+
+            return Field.ofLong(
+                    name,
+                    format.getFieldType(),
+                    context -> context.isRowSeeded()
+                            ? Math.addExact(startValue, Math.multiplyExact(deltaValue, context.getRowNumber() - 1))
+                            : lastValue.getAndAdd(deltaValue),
+                    format);
+        } catch (Exception e) {
+            throw new RuntimeException(Utils.message(
+                    "Error building sequentialTimestampField, {}, {}", name, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * A field to produce time ordered event timestamps after startInc, arriving according to
+     * arrivalProcess, e.g. at a steady Poisson rate, in bursts or following a daily curve. Values
+     * are held as epoch millis or micros to suit format.
+     * <p>
+     * When multi threaded, each row's time is instead derived from the expected number of events
+     * up to it, see {@link #sequentialTimestampField(String, Instant, Duration, TimestampFormat)}
+     * for how sequential fields behave in that mode. The rows are still in time order and follow
+     * the same rate over time but the gaps between them are more even.
+     *
+     * @param name           Field name for use in the header
+     * @param startInc       The time to start generating events from
+     * @param arrivalProcess How often events arrive, see {@link ArrivalProcess}
+     * @param format         The {@link TimestampFormat} to render the values with, which should not
+     *                       be shared with other fields.
+     * @return A complete {@link Field}
+     */
+    public static Field eventTimeField(final String name,
+                                       final Instant startInc,
+                                       final ArrivalProcess arrivalProcess,
+                                       final TimestampFormat format) {
+        try {
+            Objects.requireNonNull(startInc);
+            Objects.requireNonNull(arrivalProcess);
+            Objects.requireNonNull(format);
+
+            final EventTimeSequence eventTimeSequence = new EventTimeSequence(startInc, arrivalProcess);
+            final boolean isMicros = format.getPrecision() == ChronoUnit.MICROS;
+
+            return Field.ofLong(
+                    name,
+                    format.getFieldType(),
+                    context -> {
+                        final long epochMicros = eventTimeSequence.next(context);
+                        return isMicros
+                                ? epochMicros
+                                : Math.floorDiv(epochMicros, 1_000L);
+                    },
+                    format);
+        } catch (Exception e) {
+            throw new RuntimeException(Utils.message(
+                    "Error building eventTimeField, {}, {}", name, e.getMessage()), e);
+        }
+    }
+
+    private static long toEpochValue(final Instant instant, final TimestampFormat format) {
+        return format.getPrecision() == ChronoUnit.MICROS
+                ? Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000)
+                : instant.toEpochMilli();
+    }
+
     /**
      * A field that produces a new random UUID on each call to getNext().
      * Will always be random even if a seed is used for the generator.
@@ -532,45 +989,165 @@ public class DataGenerator {
                                          final int maxCount,
                                          final List<String> wordList) {
         try {
-            Utils.checkArgument(minCount >= 0, "minCount must be >= 0");
-            Utils.checkArgument(maxCount >= minCount, "maxCount must be >= minCount");
             Objects.requireNonNull(wordList);
             Utils.checkArgument(wordList.size() > 0,
                     () -> Utils.message(
                             "wordList must have size greater than zero, size {}",
                             wordList.size()));
+        } catch (Exception e) {
+            throw new RuntimeException(Utils.message("Error building randomWordsField, {}, {}", name, e.getMessage()), e);
+        }
+        return randomWordsField(name, minCount, maxCount, wordList, ValueDistribution.uniform(wordList.size()));
+    }
 
-            Supplier<String> supplier = () -> {
-                int wordCount = RANDOM.nextInt(maxCount - minCount + 1) + minCount;
-                return IntStream.rangeClosed(0, wordCount)
-                        .boxed()
-                        .map(i -> wordList.get(RANDOM.nextInt(wordList.size())))
-                        .collect(Collectors.joining(" "))
-                        .replaceAll("(^\\s+|\\s+$)", "") //remove leading/trailing spaces
-                        .replaceAll("\\s\\s+", " "); //replace multiple spaces with one
+    /**
+     * A field populated with a random number (between minCount and maxCount) of
+     * words separated by ' ', each chosen from wordList as often as distribution says.
+     * Leading, trailing and repeated white space in the words is removed when the field is built
+     * and empty words are skipped.
+     * Each value is built in a buffer per thread that is sized, when first used, to the longest
+     * possible value, i.e. maxCount of the longest word, rather than from a separately supplied
+     * total length.
+     * @param name          Field name for use in the header
+     * @param minCount      The minimum number of words to use when generation values
+     * @param maxCount      The maximum number of words to use when generation values
+     * @param wordList      The list of words to choose from when building values
+     * @param distribution  How often to choose each word, by its index in wordList. Its size must
+     *                      match the size of wordList.
+     * @return A complete {@link Field}
+     */
+    public static Field randomWordsField(final String name,
+                                         final int minCount,
+                                         final int maxCount,
+                                         final List<String> wordList,
+                                         final ValueDistribution distribution) {
+        try {
+            Utils.checkArgument(minCount >= 0, "minCount must be >= 0");
+            Utils.checkArgument(maxCount >= minCount, "maxCount must be >= minCount");
+            Objects.requireNonNull(wordList);
+            Objects.requireNonNull(distribution);
+            Utils.checkArgument(distribution.getSize() == wordList.size(),
+                    "distribution size {} does not match wordList size {}",
+                    distribution.getSize(), wordList.size());
+
+            final String[] words = new String[wordList.size()];
+            int maxWordLength = 0;
+            for (int i = 0; i < words.length; i++) {
+                words[i] = WHITE_SPACE_PATTERN.matcher(wordList.get(i).trim()).replaceAll(" ");
+                maxWordLength = Math.max(maxWordLength, words[i].length());
+            }
+            // Big enough for the longest phrase so the buffer never has to grow
+            final long longestValueLength = Math.max(0, ((long) maxCount * (maxWordLength + 1)) - 1);
+            Utils.checkArgument(longestValueLength <= Integer.MAX_VALUE - 8,
+                    "the longest value, of {} chars, is too long for a String", longestValueLength);
+            final int maxLength = (int) longestValueLength;
+            final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() ->
+                    new StringBuilder(maxLength));
+
+            final Function<GenerationContext, String> valueFunction = context -> {
+                final RandomSource random = context.getRandom();
+                final int wordCount = random.nextInt(maxCount - minCount + 1) + minCount;
+                final StringBuilder stringBuilder = buffers.get();
+                stringBuilder.setLength(0);
+                for (int i = 0; i < wordCount; i++) {
+                    final String word = words[distribution.nextIndex(random)];
+                    if (!word.isEmpty()) {
+                        if (stringBuilder.length() > 0) {
+                            stringBuilder.append(' ');
+                        }
+                        stringBuilder.append(word);
+                    }
+                }
+                return stringBuilder.toString();
             };
 
-            return new Field(name, supplier);
+            return new Field(name, valueFunction);
         } catch (Exception e) {
             throw new RuntimeException(Utils.message("Error building randomWordsField, {}, {}", name, e.getMessage()), e);
         }
     }
 
-
-    private static IntSupplier buildRandomNumberSupplier(final int startInc,
-                                                         final int endExc) {
+    private static ToIntFunction<GenerationContext> buildRandomNumberFunction(final int startInc,
+                                                                              final int endExc) {
         try {
             Utils.checkArgument(endExc > startInc, "endExc must be >  startInc");
 
             final int delta = endExc - startInc;
 
-            return () ->
-                    RANDOM.nextInt(delta) + startInc;
+            return context ->
+                    context.getRandom().nextInt(delta) + startInc;
         } catch (Exception e) {
             throw new RuntimeException(Utils.message("Error building randomNumberSupplier, {}", e.getMessage()), e);
         }
     }
 
+    private static void renderCodePoint(final long codePoint, final StringBuilder stringBuilder) {
+        stringBuilder.appendCodePoint((int) codePoint);
+    }
+
+    /**
+     * @return A renderer for format that is compiled once if possible, else one that calls
+     * {@link String#format} for each value.
+     */
+    private static LongRenderer buildNumberFormatRenderer(final String format) {
+        return NumberFormatTemplate.compile(format)
+                .<LongRenderer>map(template -> template)
+                .orElse((value, stringBuilder) ->
+                        stringBuilder.append(String.format(format, (int) value)));
+    }
+
+    private static long nextSequenceValue(final GenerationContext context,
+                                          final AtomicLoopedLongSequence sequence,
+                                          final long startInc,
+                                          final long endExc) {
+        return context.isRowSeeded()
+                ? startInc + ((context.getRowNumber() - 1) % (endExc - startInc))
+                : sequence.getNext();
+    }
+
+    /**
+     * Encodes the header rows, records and footer rows into a single re-used buffer, writing it
+     * to outputStream each time it fills.
+     */
+    static void writeEncodedRows(final RecordEncoder encoder,
+                                 final Stream<Record> recordStream,
+                                 final String recordSeparator,
+                                 final OutputStream outputStream) throws IOException {
+        final Utf8Buffer buffer = new Utf8Buffer(ENCODED_WRITE_BUFFER_SIZE * 2);
+        boolean isFirstRow = true;
+
+        for (final String headerRow : encoder.getHeaderRows()) {
+            if (!isFirstRow) {
+                buffer.append(recordSeparator);
+            }
+            buffer.append(headerRow);
+            isFirstRow = false;
+        }
+
+        final Iterator<Record> recordIterator = recordStream.iterator();
+        while (recordIterator.hasNext()) {
+            if (!isFirstRow) {
+                buffer.append(recordSeparator);
+            }
+            encoder.encodeRecord(recordIterator.next(), buffer);
+            isFirstRow = false;
+
+            if (buffer.size() >= ENCODED_WRITE_BUFFER_SIZE) {
+                buffer.writeTo(outputStream);
+                buffer.reset();
+            }
+        }
+
+        for (final String footerRow : encoder.getFooterRows()) {
+            if (!isFirstRow) {
+                buffer.append(recordSeparator);
+            }
+            buffer.append(footerRow);
+            isFirstRow = false;
+        }
+        buffer.writeTo(outputStream);
+    }
+
     private static void ensureDirectories(final Path file) {
         if (file.getParent() != null) {
             try {
@@ -588,11 +1165,16 @@ public class DataGenerator {
 
         private List<Field> fieldDefinitions = new ArrayList<>();
         private Consumer<Stream<String>> rowStreamConsumer;
-        private int rowCount = 1;
+        private EncodedOutputConsumer encodedOutputConsumer;
+        private ShardedOutputConsumer shardedOutputConsumer;
+        private long rowCount = 1;
         private DataWriter dataWriter;
         private boolean isParallel = false;
-        private Random random = null;
+        private Long seed = null;
+        private RandomAlgorithm randomAlgorithm = null;
         private Locale locale = null;
+        private GenerationListener listener = GenerationListener.NO_OP;
+        private RateLimit rateLimit = null;
 
         public DefinitionBuilder addFieldDefinition(final Field fieldDefinition) {
             boolean isNamedAlreadyUsed = fieldDefinitions.stream()
@@ -606,32 +1188,95 @@ public class DataGenerator {
         }
 
         public DefinitionBuilder consumedBy(final Consumer<Stream<String>> rowStreamConsumer) {
-            this.rowStreamConsumer = Objects.requireNonNull(rowStreamConsumer);
+            Objects.requireNonNull(rowStreamConsumer);
+            clearConsumers();
+            this.rowStreamConsumer = rowStreamConsumer;
+            return this;
+        }
+
+        /**
+         * Consume the records as UTF-8 bytes produced by the data writer's {@link RecordEncoder}.
+         * The data writer must be an {@link EncodingDataWriter}.
+         */
+        public DefinitionBuilder consumedBy(final EncodedOutputConsumer encodedOutputConsumer) {
+            Objects.requireNonNull(encodedOutputConsumer);
+            clearConsumers();
+            this.encodedOutputConsumer = encodedOutputConsumer;
             return this;
         }
 
+        /**
+         * Split the rows into contiguous shards that are each generated and consumed on their own
+         * thread. Rows are seeded as they are with {@link #multiThreaded()} so the data is the same
+         * however many shards there are. The data writer must be an {@link EncodingDataWriter}.
+         */
+        public DefinitionBuilder consumedBy(final ShardedOutputConsumer shardedOutputConsumer) {
+            Objects.requireNonNull(shardedOutputConsumer);
+            clearConsumers();
+            this.shardedOutputConsumer = shardedOutputConsumer;
+            return this;
+        }
+
+        private void clearConsumers() {
+            this.rowStreamConsumer = null;
+            this.encodedOutputConsumer = null;
+            this.shardedOutputConsumer = null;
+        }
+
         public DefinitionBuilder setDataWriter(final DataWriter dataWriter) {
             this.dataWriter = Objects.requireNonNull(dataWriter);
             return this;
         }
 
         public DefinitionBuilder rowCount(final int rowCount) {
+            return rowCount((long) rowCount);
+        }
+
+        public DefinitionBuilder rowCount(final long rowCount) {
             Utils.checkArgument(rowCount > 0, "rowCount must be > 0");
             this.rowCount = rowCount;
             return this;
         }
 
+        /**
+         * Keep generating rows for as long as they are consumed, i.e. a row count of
+         * {@link Long#MAX_VALUE}. Best combined with {@link #streamRecords()} or
+         * {@link #streamRows()} so the caller decides when to stop pulling rows.
+         */
+        public DefinitionBuilder unbounded() {
+            this.rowCount = Long.MAX_VALUE;
+            return this;
+        }
+
+        /**
+         * Generate the rows in parallel across all available cores. Each row is given its own
+         * random state derived from the master seed (see {@link #withRandomSeed(long)}) and
+         * the row number, so a seeded multi threaded definition produces identical output on
+         * every run, however the rows are spread over the threads. Sequential fields take their
+         * value from the row number in this mode.
+         * Note the output for a given seed differs from that of a single threaded run.
+         */
         public DefinitionBuilder multiThreaded() {
-            if (random != null) {
-                this.isParallel = true;
-            }
+            this.isParallel = true;
             return this;
         }
 
+        /**
+         * Use a fixed seed for all random values so the generated data is repeatable.
+         * Can be combined with {@link #multiThreaded()}.
+         */
         public DefinitionBuilder withRandomSeed(long seed) {
-            this.random = new Random(seed);
-            // Can't run in parallel if using a fixed seed
-            this.isParallel = false;
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Set the pseudo random number generator algorithm used for all random values.
+         * Defaults to {@link RandomAlgorithm#JDK} when a seed is set, so seeded data is the same as
+         * that produced by earlier versions, otherwise {@link RandomAlgorithm#SPLIT_MIX_64}.
+         */
+        public DefinitionBuilder withRandomAlgorithm(final RandomAlgorithm randomAlgorithm) {
+            this.randomAlgorithm = Objects.requireNonNull(randomAlgorithm);
             return this;
         }
 
@@ -640,62 +1285,453 @@ public class DataGenerator {
             return this;
         }
 
-        public void generate() {
-            DataGenerator.RANDOM = random != null
-                    ? random
-                    : new Random();
-            DataGenerator.LOCALE = locale != null
-                    ? locale
-                    : Locale.getDefault();
-            DataGenerator.FAKER = new Faker(DataGenerator.LOCALE, DataGenerator.RANDOM);
+        /**
+         * Report timings and progress of each run to listener, e.g. a {@link GenerationMetrics}.
+         * Defaults to {@link GenerationListener#NO_OP}, in which case nothing is timed.
+         */
+        public DefinitionBuilder withListener(final GenerationListener listener) {
+            this.listener = Objects.requireNonNull(listener);
+            return this;
+        }
 
-            if (fieldDefinitions.isEmpty()) {
-                throw new RuntimeException("No field definitions defined");
+        /**
+         * Lazily generate the records, each one only being generated as it is pulled from the
+         * returned stream, e.g. with {@link Stream#iterator()}. When multi threaded, rows are
+         * generated a chunk at a time as the previous chunk is used up. Any consumer and listener
+         * are ignored. The stream is sequential and must only be used by one thread.
+         * <p>
+         * Any {@link #withRateLimit(RateLimit)} paces the records as they are pulled, its schedule
+         * starting when the first record is pulled. Records have no size in bytes so a
+         * {@link RateLimit#bytesPerSecond(double)} limit is only allowed with {@link #streamRows()}.
+         */
+        public Stream<Record> streamRecords() {
+            final RateLimit rateLimit = this.rateLimit;
+            if (rateLimit != null && rateLimit.getUnit() == RateLimit.Unit.BYTES) {
+                throw new RuntimeException("A bytes per second rate limit can't be used with streamRecords(), " +
+                        "use streamRows() or rowsPerSecond()");
             }
-            if (rowStreamConsumer == null) {
+            return pacePulled(
+                    paceRows(generateRows(getRunFields(), Function.identity(), null), rateLimit),
+                    rateLimit);
+        }
+
+        /**
+         * As {@link #streamRecords()} but each record is mapped to its row by the data writer,
+         * including any header rows, plus footer rows once all the rows have been pulled. Any
+         * {@link #withRateLimit(RateLimit)} paces the rows, or their bytes, as they are pulled.
+         */
+        public Stream<String> streamRows() {
+            final List<Field> fields = getRunFields();
+            final DataWriter dataWriter = getRunDataWriter();
+            final RateLimit rateLimit = this.rateLimit;
+            final Optional<Function<Record, String>> optRecordMapper = dataWriter.getRecordMapper(fields);
+            final Stream<String> rowStream;
+            if (optRecordMapper.isPresent()) {
+                rowStream = Stream.concat(
+                        Stream.concat(
+                                dataWriter.getHeaderRows(fields).stream(),
+                                paceRows(generateRows(fields, optRecordMapper.get(), null), rateLimit)),
+                        dataWriter.getFooterRows(fields).stream());
+            } else {
+                rowStream = dataWriter.mapRecords(
+                        fields,
+                        paceRows(generateRows(fields, Function.identity(), null), rateLimit))
+                        .sequential();
+            }
+            return pacePulled(paceBytes(rowStream, rateLimit), rateLimit);
+        }
+
+        /**
+         * Pace each run to the target rate of rateLimit rather than generating as fast as
+         * possible. Once the run has finished, rateLimit holds how close the run came to the target.
+         * Applies to {@link #generate()} and to the rows pulled from {@link #streamRecords()} and
+         * {@link #streamRows()}.
+         */
+        public DefinitionBuilder withRateLimit(final RateLimit rateLimit) {
+            this.rateLimit = Objects.requireNonNull(rateLimit);
+            return this;
+        }
+
+        public void generate() {
+            if (rowStreamConsumer == null && encodedOutputConsumer == null && shardedOutputConsumer == null) {
                 throw new RuntimeException("No consumer defined");
             }
-            if (dataWriter == null) {
-                //default to CSV
-                dataWriter = FlatDataWriterBuilder.defaultCsvFormat();
+            final List<Field> fields = getRunFields();
+            final DataWriter dataWriter = getRunDataWriter();
+
+            // Only monitor the run if someone is listening
+            final RunMonitor monitor = listener != GenerationListener.NO_OP
+                    ? new RunMonitor(listener, rowCount)
+                    : null;
+            if (monitor != null) {
+                monitor.start();
+            }
+            final RateLimit rateLimit = this.rateLimit;
+            if (rateLimit != null) {
+                rateLimit.start();
+            }
+
+            if (encodedOutputConsumer != null) {
+                final RecordEncoder encoder = paceEncoder(
+                        timeEncoder(createEncoder(dataWriter, fields, "An EncodedOutputConsumer"), monitor),
+                        rateLimit);
+                final Stream<Record> recordStream = paceRows(
+                        generateRows(fields, Function.identity(), monitor),
+                        rateLimit);
+                if (monitor != null) {
+                    monitor.timeConsumer(recordStream, stream -> encodedOutputConsumer.accept(encoder, stream));
+                } else {
+                    encodedOutputConsumer.accept(encoder, recordStream);
+                }
+            } else if (shardedOutputConsumer != null) {
+                final RecordEncoder encoder = paceEncoder(
+                        timeEncoder(createEncoder(dataWriter, fields, "A ShardedOutputConsumer"), monitor),
+                        rateLimit);
+                generateShards(fields, encoder, monitor);
+            } else {
+                final Optional<Function<Record, String>> optRecordMapper = dataWriter.getRecordMapper(fields);
+                final Stream<String> rowStream;
+                if (monitor != null && dataWriter instanceof EncodingDataWriter) {
+                    // Use the encoder directly so the encoding of each record can be timed
+                    final RecordEncoder encoder = timeEncoder(((EncodingDataWriter) dataWriter).createEncoder(fields), monitor);
+                    rowStream = Stream.concat(
+                            Stream.concat(
+                                    encoder.getHeaderRows().stream(),
+                                    paceRows(
+                                            generateRows(fields, EncodingDataWriter.toRecordMapper(encoder), monitor),
+                                            rateLimit)),
+                            encoder.getFooterRows().stream());
+                } else if (isParallel && optRecordMapper.isPresent()) {
+                    // Each record is mapped to its row on the thread that generated it, with the
+                    // header and footer rows either side
+                    rowStream = Stream.concat(
+                            Stream.concat(
+                                    dataWriter.getHeaderRows(fields).stream(),
+                                    paceRows(generateRows(fields, optRecordMapper.get(), monitor), rateLimit)),
+                            dataWriter.getFooterRows(fields).stream());
+                } else {
+                    //convert our stream of data records into a stream of strings that possibly
+                    //includes adding things like header/footer rows, tags, delimiters, etc.
+                    rowStream = dataWriter.mapRecords(
+                            fields,
+                            paceRows(generateRows(fields, Function.identity(), monitor), rateLimit));
+                }
+
+                // The consumers, e.g. file writers are likely not thread safe so make the stream sequential at this
+                // point
+                final Stream<String> sequentialRowStream = paceBytes(rowStream.sequential(), rateLimit);
+                if (monitor != null) {
+                    monitor.timeConsumer(sequentialRowStream, rowStreamConsumer);
+                } else {
+                    rowStreamConsumer.accept(sequentialRowStream);
+                }
             }
 
-            //convert our stream of data records into a stream of strings that possibly
-            //includes adding things like header/footer rows, tags, delimiters, etc.
-            final Stream<String> rowStream = dataWriter.mapRecords(fieldDefinitions, generateDataRows());
+            if (rateLimit != null) {
+                rateLimit.complete();
+            }
+            if (monitor != null) {
+                monitor.complete();
+            }
+        }
 
-            // The consumers, e.g. file writers are likely not thread safe so make the stream sequential at this
-            // point
-            rowStreamConsumer.accept(rowStream.sequential());
+        private static <T> Stream<T> paceRows(final Stream<T> rowStream, final RateLimit rateLimit) {
+            return rateLimit != null && rateLimit.getUnit() == RateLimit.Unit.ROWS
+                    ? rowStream.peek(row -> rateLimit.acquire(1))
+                    : rowStream;
         }
 
-        private Stream<Record> generateDataRows() {
+        /**
+         * @return A stream of the items of pacedStream that starts the schedule of rateLimit when
+         * the first item is pulled and completes it once the last has been.
+         */
+        private static <T> Stream<T> pacePulled(final Stream<T> pacedStream, final RateLimit rateLimit) {
+            if (rateLimit == null) {
+                return pacedStream;
+            }
+            final Iterator<T> iterator = pacedStream.iterator();
+            final Iterator<T> pacedIterator = new Iterator<T>() {
+                private boolean isStarted = false;
+                private boolean isComplete = false;
+
+                @Override
+                public boolean hasNext() {
+                    start();
+                    final boolean hasNext = iterator.hasNext();
+                    if (!hasNext && !isComplete) {
+                        isComplete = true;
+                        rateLimit.complete();
+                    }
+                    return hasNext;
+                }
 
-            Function<Integer, Record> toRecordMapper = integer -> {
-                List<String> values = fieldDefinitions.stream()
-                        .map(field -> {
-                            try {
-                                return field.getNext();
-                            } catch (Exception e) {
-                                throw new RuntimeException(Utils.message("Error getting next value for field {}, {}",
-                                        field.getName(), e.getMessage()), e);
-                            }
-                        })
-                        .collect(Collectors.toList());
-                return new Record(fieldDefinitions, values);
+                @Override
+                public T next() {
+                    start();
+                    return iterator.next();
+                }
+
+                private void start() {
+                    if (!isStarted) {
+                        isStarted = true;
+                        rateLimit.start();
+                    }
+                }
             };
+            return StreamSupport.stream(
+                    Spliterators.spliteratorUnknownSize(pacedIterator, Spliterator.ORDERED),
+                    false)
+                    .onClose(pacedStream::close);
+        }
 
-            IntStream stream = IntStream.rangeClosed(1, rowCount);
+        private static Stream<String> paceBytes(final Stream<String> rowStream, final RateLimit rateLimit) {
+            return rateLimit != null && rateLimit.getUnit() == RateLimit.Unit.BYTES
+                    ? rowStream.peek(row -> rateLimit.acquire(Utf8Buffer.encodedLength(row)))
+                    : rowStream;
+        }
+
+        /**
+         * @return An encoder that takes as many bytes from rateLimit as each record is encoded to,
+         * if it is limiting bytes.
+         */
+        private static RecordEncoder paceEncoder(final RecordEncoder encoder, final RateLimit rateLimit) {
+            if (rateLimit == null || rateLimit.getUnit() != RateLimit.Unit.BYTES) {
+                return encoder;
+            }
+            return new RecordEncoder() {
+                @Override
+                public List<String> getHeaderRows() {
+                    return encoder.getHeaderRows();
+                }
+
+                @Override
+                public void encodeRecord(final Record record, final Utf8Buffer buffer) {
+                    final int startSize = buffer.size();
+                    encoder.encodeRecord(record, buffer);
+                    rateLimit.acquire(buffer.size() - startSize);
+                }
+
+                @Override
+                public void encodeRecord(final Record record, final boolean isFirstRecord, final Utf8Buffer buffer) {
+                    final int startSize = buffer.size();
+                    encoder.encodeRecord(record, isFirstRecord, buffer);
+                    rateLimit.acquire(buffer.size() - startSize);
+                }
+
+                @Override
+                public List<String> getFooterRows() {
+                    return encoder.getFooterRows();
+                }
+            };
+        }
+
+        private static RecordEncoder timeEncoder(final RecordEncoder encoder, final RunMonitor monitor) {
+            return monitor != null
+                    ? monitor.timeEncoder(encoder)
+                    : encoder;
+        }
+
+        /**
+         * @return A copy of the definition so this run is unaffected by any later changes to the builder
+         */
+        private List<Field> getRunFields() {
+            if (fieldDefinitions.isEmpty()) {
+                throw new RuntimeException("No field definitions defined");
+            }
+            return new ArrayList<>(fieldDefinitions);
+        }
+
+        private DataWriter getRunDataWriter() {
+            return dataWriter != null
+                    ? dataWriter
+                    //default to CSV
+                    : FlatDataWriterBuilder.defaultCsvFormat();
+        }
+
+        private static RecordEncoder createEncoder(final DataWriter dataWriter,
+                                                   final List<Field> fields,
+                                                   final String consumerDescription) {
+            if (!(dataWriter instanceof EncodingDataWriter)) {
+                throw new RuntimeException(consumerDescription + " requires an EncodingDataWriter");
+            }
+            return ((EncodingDataWriter) dataWriter).createEncoder(fields);
+        }
+
+        private Locale getRunLocale() {
+            return locale != null
+                    ? locale
+                    : Locale.getDefault();
+        }
+
+        private RandomAlgorithm getRunRandomAlgorithm() {
+            return randomAlgorithm != null
+                    ? randomAlgorithm
+                    : (seed != null ? RandomAlgorithm.JDK : RandomAlgorithm.SPLIT_MIX_64);
+        }
+
+        /**
+         * @param rowMapper Applied to each record as soon as it is generated, on the same thread.
+         */
+        private <T> Stream<T> generateRows(final List<Field> fields,
+                                           final Function<Record, T> rowMapper,
+                                           final RunMonitor monitor) {
+            final Locale runLocale = getRunLocale();
+            final RandomAlgorithm runRandomAlgorithm = getRunRandomAlgorithm();
 
             if (isParallel) {
-                stream = stream.parallel();
+                return generateRowsInParallel(fields, runLocale, runRandomAlgorithm, rowMapper, monitor);
             } else {
-                stream = stream.sequential();
+                final GenerationContext context = new GenerationContext(
+                        runRandomAlgorithm.create(seed != null ? seed : ThreadLocalRandom.current().nextLong()),
+                        runLocale,
+                        null);
+                return LongStream.rangeClosed(1, rowCount)
+                        .mapToObj(rowNumber -> rowMapper.apply(generateRecord(fields, context, rowNumber, monitor)));
             }
+        }
+
+        /**
+         * Rows are generated in parallel a chunk at a time, each row seeded from its row number.
+         * The chunks are then streamed in order so the consumer still sees a sequential stream.
+         */
+        private <T> Stream<T> generateRowsInParallel(final List<Field> fields,
+                                                     final Locale runLocale,
+                                                     final RandomAlgorithm runRandomAlgorithm,
+                                                     final Function<Record, T> rowMapper,
+                                                     final RunMonitor monitor) {
+            final long masterSeed = seed != null
+                    ? seed
+                    : ThreadLocalRandom.current().nextLong();
+            final long rowCount = this.rowCount;
+            final long chunkCount = ((rowCount - 1) / PARALLEL_CHUNK_SIZE) + 1;
+            // One context per thread for the life of this run. Each one is re-seeded for every row.
+            final ThreadLocal<GenerationContext> contexts = ThreadLocal.withInitial(() ->
+                    new GenerationContext(runRandomAlgorithm.create(masterSeed), runLocale, masterSeed));
+
+            return LongStream.range(0, chunkCount)
+                    .mapToObj(chunkIdx -> {
+                        final long firstRowNumber = (chunkIdx * PARALLEL_CHUNK_SIZE) + 1;
+                        final long lastRowNumber = Math.min(firstRowNumber + PARALLEL_CHUNK_SIZE - 1, rowCount);
+                        return LongStream.rangeClosed(firstRowNumber, lastRowNumber)
+                                .parallel()
+                                .mapToObj(rowNumber ->
+                                        rowMapper.apply(generateRecord(fields, contexts.get(), rowNumber, monitor)))
+                                .collect(Collectors.toList());
+                    })
+                    .flatMap(List::stream);
+        }
+
+        /**
+         * Each shard generates its range of rows with its own context on its own thread, each
+         * row seeded from its row number, and hands them to the consumer.
+         */
+        private void generateShards(final List<Field> fields,
+                                    final RecordEncoder encoder,
+                                    final RunMonitor monitor) {
+            final Locale runLocale = getRunLocale();
+            final RandomAlgorithm runRandomAlgorithm = getRunRandomAlgorithm();
+            final long masterSeed = seed != null
+                    ? seed
+                    : ThreadLocalRandom.current().nextLong();
+            final ShardedOutputConsumer shardedOutputConsumer = this.shardedOutputConsumer;
+            final RateLimit rateLimit = this.rateLimit;
+            final long rowCount = this.rowCount;
+            final int shardCount = (int) Math.min(shardedOutputConsumer.getShardCount(), rowCount);
+            Utils.checkArgument(shardCount > 0, "shardCount must be > 0");
+
+            final ExecutorService executorService = Utils.newDaemonThreadPool(shardCount, "stroom-test-data-shard");
+            try {
+                final List<Future<?>> futures = new ArrayList<>(shardCount);
+                for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+                    final long firstRowNumber = getShardEnd(rowCount, shardCount, shardNo) + 1;
+                    final long lastRowNumber = getShardEnd(rowCount, shardCount, shardNo + 1);
+                    final int finalShardNo = shardNo;
+                    futures.add(executorService.submit(() -> {
+                        final GenerationContext context = new GenerationContext(
+                                runRandomAlgorithm.create(masterSeed), runLocale, masterSeed);
+                        final Stream<Record> recordStream = paceRows(
+                                LongStream.rangeClosed(firstRowNumber, lastRowNumber)
+                                        .mapToObj(rowNumber -> generateRecord(fields, context, rowNumber, monitor)),
+                                rateLimit);
+                        if (monitor != null) {
+                            monitor.timeConsumer(recordStream, stream ->
+                                    shardedOutputConsumer.acceptShard(encoder, finalShardNo, stream));
+                        } else {
+                            shardedOutputConsumer.acceptShard(encoder, finalShardNo, recordStream);
+                        }
+                    }));
+                }
+                for (final Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted generating shards", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error generating shard: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
 
-            return stream
-                    .boxed()
-                    .map(toRecordMapper);
+        /**
+         * @return The last row number of the shards before shardNo, i.e. rowCount * shardNo / shardCount
+         * without overflowing. Any remainder is spread over the shards.
+         */
+        private static long getShardEnd(final long rowCount, final int shardCount, final int shardNo) {
+            final long rowsPerShard = rowCount / shardCount;
+            final long remainder = rowCount % shardCount;
+            return (rowsPerShard * shardNo) + ((remainder * shardNo) / shardCount);
+        }
+
+        /**
+         * @param monitor Null if the run is not monitored.
+         */
+        private static Record generateRecord(final List<Field> fields,
+                                             final GenerationContext context,
+                                             final long rowNumber,
+                                             final RunMonitor monitor) {
+            context.beginRow(rowNumber);
+            final int fieldCount = fields.size();
+            final String[] stringValues = new String[fieldCount];
+            long[] longValues = null;
+            double[] doubleValues = null;
+            final boolean isSampledRow = monitor != null && monitor.isSampledRow(rowNumber);
+
+            for (int i = 0; i < fieldCount; i++) {
+                final Field field = fields.get(i);
+                final long startNanos = isSampledRow
+                        ? System.nanoTime()
+                        : 0;
+                try {
+                    switch (field.getValueSlot()) {
+                        case LONG:
+                            if (longValues == null) {
+                                longValues = new long[fieldCount];
+                            }
+                            longValues[i] = field.getNextLong(context);
+                            break;
+                        case DOUBLE:
+                            if (doubleValues == null) {
+                                doubleValues = new double[fieldCount];
+                            }
+                            doubleValues[i] = field.getNextDouble(context);
+                            break;
+                        default:
+                            stringValues[i] = field.getNext(context);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(Utils.message("Error getting next value for field {}, {}",
+                            field.getName(), e.getMessage()), e);
+                }
+                if (isSampledRow) {
+                    monitor.fieldSampled(field, System.nanoTime() - startNanos);
+                }
+            }
+            if (monitor != null) {
+                monitor.rowGenerated(rowNumber);
+            }
+            return new Record(fields, rowNumber, stringValues, longValues, doubleValues);
         }
     }
 }
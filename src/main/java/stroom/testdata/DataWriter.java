@@ -1,9 +1,40 @@
 package stroom.testdata;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 public interface DataWriter {
     Stream<String> mapRecords(final List<Field> fieldDefinitions,
                               final Stream<Record> recordStream);
+
+    /**
+     * @return The rows to output before the first record, e.g. an XML prolog and opening root
+     * element. Only used if {@link #getRecordMapper(List)} is present.
+     */
+    default List<String> getHeaderRows(final List<Field> fieldDefinitions) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @return A function that maps a single record to its row independently of any other
+     * record, or empty if the writer can only map the whole stream in
+     * {@link #mapRecords(List, Stream)}. If present, the header rows, the mapped records and
+     * the footer rows must together be the same as the output of {@link #mapRecords(List, Stream)},
+     * as when multi threaded the generator will call the function concurrently on the threads
+     * generating the records.
+     */
+    default Optional<Function<Record, String>> getRecordMapper(final List<Field> fieldDefinitions) {
+        return Optional.empty();
+    }
+
+    /**
+     * @return The rows to output after the last record, e.g. a closing XML root element.
+     * Only used if {@link #getRecordMapper(List)} is present.
+     */
+    default List<String> getFooterRows(final List<Field> fieldDefinitions) {
+        return Collections.emptyList();
+    }
 }
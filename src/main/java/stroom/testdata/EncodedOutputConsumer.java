@@ -0,0 +1,18 @@
+package stroom.testdata;
+
+import java.util.stream.Stream;
+
+/**
+ * Consumes generated records by encoding them to bytes with a {@link RecordEncoder}, rather
+ * than consuming a stream of strings. See
+ * {@link DataGenerator#getEncodedFileOutputConsumer(java.nio.file.Path, String)}.
+ */
+@FunctionalInterface
+public interface EncodedOutputConsumer {
+
+    /**
+     * @param encoder      The encoder for the fields of the records.
+     * @param recordStream The records in row order.
+     */
+    void accept(RecordEncoder encoder, Stream<Record> recordStream);
+}
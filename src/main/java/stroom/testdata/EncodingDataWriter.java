@@ -0,0 +1,62 @@
+package stroom.testdata;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A {@link DataWriter} that can also encode records straight to UTF-8 bytes, for use with an
+ * {@link EncodedOutputConsumer}. The string output of {@link #mapRecords(List, Stream)} is
+ * produced by the same encoder so both forms are identical.
+ */
+@FunctionalInterface
+public interface EncodingDataWriter extends DataWriter {
+
+    /**
+     * @param fieldDefinitions The fields of the records to be encoded.
+     * @return An encoder for records of fieldDefinitions.
+     */
+    RecordEncoder createEncoder(List<Field> fieldDefinitions);
+
+    @Override
+    default Stream<String> mapRecords(final List<Field> fieldDefinitions,
+                                      final Stream<Record> recordStream) {
+        final RecordEncoder encoder = createEncoder(fieldDefinitions);
+
+        return Stream.concat(
+                Stream.concat(
+                        encoder.getHeaderRows().stream(),
+                        recordStream.map(toRecordMapper(encoder))),
+                encoder.getFooterRows().stream());
+    }
+
+    @Override
+    default List<String> getHeaderRows(final List<Field> fieldDefinitions) {
+        return createEncoder(fieldDefinitions).getHeaderRows();
+    }
+
+    @Override
+    default Optional<Function<Record, String>> getRecordMapper(final List<Field> fieldDefinitions) {
+        return Optional.of(toRecordMapper(createEncoder(fieldDefinitions)));
+    }
+
+    @Override
+    default List<String> getFooterRows(final List<Field> fieldDefinitions) {
+        return createEncoder(fieldDefinitions).getFooterRows();
+    }
+
+    /**
+     * @return A thread safe function that encodes each record then decodes it as a string,
+     * re-using a buffer per thread.
+     */
+    static Function<Record, String> toRecordMapper(final RecordEncoder encoder) {
+        final ThreadLocal<Utf8Buffer> buffers = ThreadLocal.withInitial(Utf8Buffer::new);
+        return record -> {
+            final Utf8Buffer buffer = buffers.get();
+            buffer.reset();
+            encoder.encodeRecord(record, buffer);
+            return buffer.toString();
+        };
+    }
+}
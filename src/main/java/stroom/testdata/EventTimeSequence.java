@@ -0,0 +1,184 @@
+package stroom.testdata;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Produces time ordered event times, in epoch micros, that arrive according to an
+ * {@link ArrivalProcess}.
+ * <p>
+ * When generated in row order each gap between events is drawn from an exponential distribution
+ * using the rate at the previous event, so the events form a Poisson process whose rate follows
+ * the arrival process. When each row is seeded independently (see
+ * {@link GenerationContext#isRowSeeded()}) there is no previous event so instead the time of
+ * row n is where the expected number of events since the start reaches n - 1 + u, for a random u
+ * in [0, 1). That keeps the rows in time order with the same rate profile, though with more evenly
+ * spaced events. The expected number of events is integrated a slot at a time and held in a table
+ * that is shared by all threads and only extended as far as the rows need. Slots are sized to hold
+ * about {@link #EVENTS_PER_SLOT} events at the mean rate, from one second up to an hour, so the
+ * table grows by a fraction of an entry per row. The rate is sampled up to once a second across
+ * each slot but taken as constant within it. The table is limited to {@link #MAX_TABLE_SIZE}
+ * slots, beyond which the row seeded times fail rather than grow without bound.
+ */
+class EventTimeSequence {
+
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+    private static final int MAX_EMPTY_SLOTS = 1_000_000;
+    private static final int EVENTS_PER_SLOT = 64;
+    // 128MB of cumulative counts
+    private static final int MAX_TABLE_SIZE = 16 * 1024 * 1024;
+
+    private final ArrivalProcess arrivalProcess;
+    private final long startMicros;
+    private final long slotMicros;
+    private final AtomicLong lastMicros;
+
+    private volatile Table table;
+
+    EventTimeSequence(final Instant startInc, final ArrivalProcess arrivalProcess) {
+        this.arrivalProcess = Objects.requireNonNull(arrivalProcess);
+        this.startMicros = Math.addExact(
+                Math.multiplyExact(startInc.getEpochSecond(), MICROS_PER_SECOND),
+                startInc.getNano() / 1_000);
+        this.lastMicros = new AtomicLong(startMicros);
+
+        // Slots of about EVENTS_PER_SLOT events each at the mean rate
+        double dayRateTotal = 0;
+        for (int hour = 0; hour < 24; hour++) {
+            dayRateTotal += arrivalProcess.getRate(toEpochMillis(startMicros) + (hour * 3_600_000L));
+        }
+        final double meanRate = dayRateTotal / 24;
+        this.slotMicros = (long) Math.max(
+                MICROS_PER_SECOND,
+                Math.min(3_600 * MICROS_PER_SECOND,
+                        Math.ceil(EVENTS_PER_SLOT * MICROS_PER_SECOND / Math.max(meanRate, 1E-6))));
+        this.table = new Table(new double[1024], 1);
+    }
+
+    /**
+     * @return The time of the next event in epoch micros.
+     */
+    long next(final GenerationContext context) {
+        final double u = context.getRandom().nextDouble();
+        return context.isRowSeeded()
+                ? getExpectedTime(context.getRowNumber() - 1 + u)
+                : getNextTime(u);
+    }
+
+    private long getNextTime(final double u) {
+        while (true) {
+            final long lastMicros = this.lastMicros.get();
+            long fromMicros = lastMicros;
+            double rate = arrivalProcess.getRate(toEpochMillis(fromMicros));
+            int emptySlotCount = 0;
+            while (rate <= 0) {
+                // Nothing arrives so skip to the next slot and try again
+                checkEmptySlotCount(++emptySlotCount);
+                fromMicros = (Math.floorDiv(fromMicros, slotMicros) + 1) * slotMicros;
+                rate = arrivalProcess.getRate(toEpochMillis(fromMicros));
+            }
+            final long gapMicros = (long) (-Math.log(1 - u) / rate * MICROS_PER_SECOND);
+            final long nextMicros = fromMicros + gapMicros;
+            if (this.lastMicros.compareAndSet(lastMicros, nextMicros)) {
+                return nextMicros;
+            }
+        }
+    }
+
+    private long getExpectedTime(final double expectedEventCount) {
+        Table table = this.table;
+        if (table.getLast() <= expectedEventCount) {
+            table = extendTable(expectedEventCount);
+        }
+        final double[] cumulative = table.cumulative;
+        // Find the slot whose events include expectedEventCount
+        int low = 0;
+        int high = table.size - 1;
+        while (high - low > 1) {
+            final int mid = (low + high) >>> 1;
+            if (cumulative[mid] <= expectedEventCount) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        final double slotFraction = (expectedEventCount - cumulative[low]) / (cumulative[high] - cumulative[low]);
+        return startMicros + (low * slotMicros) + (long) (slotFraction * slotMicros);
+    }
+
+    private synchronized Table extendTable(final double expectedEventCount) {
+        final Table table = this.table;
+        double[] cumulative = table.cumulative;
+        int size = table.size;
+        int emptySlotCount = 0;
+        while (cumulative[size - 1] <= expectedEventCount) {
+            if (size == cumulative.length) {
+                if (size == MAX_TABLE_SIZE) {
+                    throw new RuntimeException(Utils.message(
+                            "Row seeded event times can't go beyond {} slots of {}us after the start, " +
+                                    "reached after {} expected events. Generate in row order instead.",
+                            MAX_TABLE_SIZE, slotMicros, (long) cumulative[size - 1]));
+                }
+                cumulative = Arrays.copyOf(cumulative, Math.min(size * 2, MAX_TABLE_SIZE));
+            }
+            final double slotEventCount = getSlotEventCount(startMicros + ((size - 1) * slotMicros));
+            emptySlotCount = slotEventCount > 0
+                    ? 0
+                    : emptySlotCount + 1;
+            checkEmptySlotCount(emptySlotCount);
+            cumulative[size] = cumulative[size - 1] + slotEventCount;
+            size++;
+        }
+        // Readers never look beyond size so can share the array we have just written to
+        final Table extendedTable = new Table(cumulative, size);
+        this.table = extendedTable;
+        return extendedTable;
+    }
+
+    /**
+     * @return The expected number of events in the slot starting at slotStartMicros, from the rate
+     * at the middle of each of up to {@link #EVENTS_PER_SLOT} equal parts of the slot.
+     */
+    private double getSlotEventCount(final long slotStartMicros) {
+        final int sampleCount = (int) Math.min(EVENTS_PER_SLOT, slotMicros / MICROS_PER_SECOND);
+        final long sampleMicros = slotMicros / sampleCount;
+        double rateTotal = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            final long sampleMidMicros = slotStartMicros + (i * sampleMicros) + (sampleMicros / 2);
+            rateTotal += arrivalProcess.getRate(toEpochMillis(sampleMidMicros));
+        }
+        return rateTotal / sampleCount * slotMicros / MICROS_PER_SECOND;
+    }
+
+    private void checkEmptySlotCount(final int emptySlotCount) {
+        if (emptySlotCount > MAX_EMPTY_SLOTS) {
+            throw new RuntimeException(Utils.message("No events arrive in {} consecutive slots of {}us",
+                    MAX_EMPTY_SLOTS, slotMicros));
+        }
+    }
+
+    private static long toEpochMillis(final long epochMicros) {
+        return Math.floorDiv(epochMicros, 1_000L);
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * The expected number of events before the start of each slot, the first being 0.
+     */
+    private static final class Table {
+        private final double[] cumulative;
+        private final int size;
+
+        private Table(final double[] cumulative, final int size) {
+            this.cumulative = cumulative;
+            this.size = size;
+        }
+
+        private double getLast() {
+            return cumulative[size - 1];
+        }
+    }
+}
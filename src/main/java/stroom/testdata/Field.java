@@ -4,12 +4,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * Class to hold the definition of a field in a set of flat test data records.
  * Multiple static factory methods exist for creating various pre-canned types
  * of test data field, e.g. a random IP address
+ * <p>
+ * A field's values are held in a {@link Record} as a String, a long or a double depending on how
+ * the field was constructed. Long and double values are only turned into text when a writer
+ * needs them, see {@link #ofLong(String, FieldType, ToLongFunction, LongRenderer)}.
  */
 public class Field {
 
@@ -19,7 +26,12 @@ public class Field {
     private static final Logger LOGGER = LoggerFactory.getLogger(Field.class);
 
     private final String name;
-    private final Supplier<String> valueFunction;
+    private final FieldType type;
+    private final ValueSlot valueSlot;
+    private final Function<GenerationContext, String> valueFunction;
+    private final ToLongFunction<GenerationContext> longValueFunction;
+    private final ToDoubleFunction<GenerationContext> doubleValueFunction;
+    private final LongRenderer longRenderer;
 
     /**
      * @param name          The name of the field
@@ -28,18 +40,153 @@ public class Field {
     public Field(final String name,
                  final Supplier<String> valueSupplier) {
 
+        this(name, context -> valueSupplier.get());
+        Objects.requireNonNull(valueSupplier);
+    }
+
+    /**
+     * @param name          The name of the field
+     * @param valueFunction A function to supply values for the field using the random
+     *                      state etc. of the supplied {@link GenerationContext}
+     */
+    public Field(final String name,
+                 final Function<GenerationContext, String> valueFunction) {
+
+        this(name,
+                FieldType.STRING,
+                ValueSlot.STRING,
+                Objects.requireNonNull(valueFunction),
+                null,
+                null,
+                null);
+    }
+
+    private Field(final String name,
+                  final FieldType type,
+                  final ValueSlot valueSlot,
+                  final Function<GenerationContext, String> valueFunction,
+                  final ToLongFunction<GenerationContext> longValueFunction,
+                  final ToDoubleFunction<GenerationContext> doubleValueFunction,
+                  final LongRenderer longRenderer) {
         this.name = Objects.requireNonNull(name);
-        this.valueFunction = Objects.requireNonNull(valueSupplier);
+        this.type = Objects.requireNonNull(type);
+        this.valueSlot = valueSlot;
+        this.valueFunction = valueFunction;
+        this.longValueFunction = longValueFunction;
+        this.doubleValueFunction = doubleValueFunction;
+        this.longRenderer = longRenderer;
+    }
+
+    /**
+     * @param name          The name of the field
+     * @param valueFunction A function to supply whole number values for the field
+     * @return A {@link FieldType#LONG} field.
+     */
+    public static Field ofLong(final String name,
+                               final ToLongFunction<GenerationContext> valueFunction) {
+        return ofLong(name, FieldType.LONG, valueFunction, LongRenderer.DECIMAL);
+    }
+
+    /**
+     * @param name          The name of the field
+     * @param type          The type of the values. Must not be {@link FieldType#DOUBLE}.
+     * @param valueFunction A function to supply values for the field as longs
+     * @param longRenderer  Renders the long values as text when required
+     * @return A field whose values are held as longs.
+     */
+    public static Field ofLong(final String name,
+                               final FieldType type,
+                               final ToLongFunction<GenerationContext> valueFunction,
+                               final LongRenderer longRenderer) {
+        Utils.checkArgument(type != FieldType.DOUBLE, "type cannot be {}", type);
+        return new Field(
+                name,
+                type,
+                ValueSlot.LONG,
+                null,
+                Objects.requireNonNull(valueFunction),
+                null,
+                Objects.requireNonNull(longRenderer));
+    }
+
+    /**
+     * @param name          The name of the field
+     * @param valueFunction A function to supply floating point values for the field
+     * @return A {@link FieldType#DOUBLE} field.
+     */
+    public static Field ofDouble(final String name,
+                                 final ToDoubleFunction<GenerationContext> valueFunction) {
+        return new Field(
+                name,
+                FieldType.DOUBLE,
+                ValueSlot.DOUBLE,
+                null,
+                null,
+                Objects.requireNonNull(valueFunction),
+                null);
+    }
+
+    /**
+     * @return The next value for this field from the value supplier, using an un-seeded
+     * context for the current thread.
+     * See {@link #getNext(GenerationContext)}.
+     */
+    public String getNext() {
+        return getNext(GenerationContext.standalone());
     }
 
     /**
+     * @param context The context of the row being generated.
      * @return The next value for this field from the value supplier.
      * The value supplier may either be stateful, i.e. the next value is
      * dependant on values that cam before it or stateless, i.e. the next
      * value has no relation to previous values.
      */
-    public String getNext() {
-        return valueFunction.get();
+    public String getNext(final GenerationContext context) {
+        switch (valueSlot) {
+            case LONG:
+                return renderLong(longValueFunction.applyAsLong(context));
+            case DOUBLE:
+                return Double.toString(doubleValueFunction.applyAsDouble(context));
+            default:
+                return valueFunction.apply(context);
+        }
+    }
+
+    /**
+     * @return The type of this field's values
+     */
+    public FieldType getType() {
+        return type;
+    }
+
+    ValueSlot getValueSlot() {
+        return valueSlot;
+    }
+
+    long getNextLong(final GenerationContext context) {
+        return longValueFunction.applyAsLong(context);
+    }
+
+    double getNextDouble(final GenerationContext context) {
+        return doubleValueFunction.applyAsDouble(context);
+    }
+
+    /**
+     * @return True if the field holds long values that are rendered as plain decimal numbers.
+     */
+    boolean isDecimal() {
+        return longRenderer == LongRenderer.DECIMAL;
+    }
+
+    void renderLong(final long value, final StringBuilder stringBuilder) {
+        longRenderer.render(value, stringBuilder);
+    }
+
+    String renderLong(final long value) {
+        final StringBuilder stringBuilder = new StringBuilder();
+        longRenderer.render(value, stringBuilder);
+        return stringBuilder.toString();
     }
 
     /**
@@ -49,4 +196,14 @@ public class Field {
         return name;
     }
 
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * How a field's values are held in a {@link Record}
+     */
+    enum ValueSlot {
+        STRING,
+        LONG,
+        DOUBLE
+    }
 }
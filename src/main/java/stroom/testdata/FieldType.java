@@ -0,0 +1,51 @@
+package stroom.testdata;
+
+/**
+ * The type of the values produced by a {@link Field}. Writers can use this to decide how
+ * to encode a value, e.g. whether to quote it.
+ */
+public enum FieldType {
+
+    /**
+     * Text. The value may be held as a string or rendered on demand from a long, e.g. an IP address.
+     */
+    STRING(false),
+
+    /**
+     * A whole number held as a long.
+     */
+    LONG(true),
+
+    /**
+     * A floating point number held as a double.
+     */
+    DOUBLE(true),
+
+    /**
+     * A true/false value held as a long, 1 or 0.
+     */
+    BOOLEAN(false),
+
+    /**
+     * A point in time held as milliseconds since the epoch and rendered as text by the field.
+     */
+    EPOCH_MILLIS(false),
+
+    /**
+     * A point in time held as microseconds since the epoch and rendered as text by the field.
+     */
+    EPOCH_MICROS(false);
+
+    private final boolean isNumeric;
+
+    FieldType(final boolean isNumeric) {
+        this.isNumeric = isNumeric;
+    }
+
+    /**
+     * @return True if values of this type are rendered as plain numbers.
+     */
+    public boolean isNumeric() {
+        return isNumeric;
+    }
+}
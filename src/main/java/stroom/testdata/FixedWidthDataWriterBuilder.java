@@ -0,0 +1,162 @@
+package stroom.testdata;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Produces fixed width text with one record per row and each value padded to the width of its
+ * field, e.g.
+ * <pre>
+ * {@code
+ * name      count
+ * apple        12
+ * banana        7
+ * }
+ * </pre>
+ * Values of {@link FieldType#isNumeric()} fields are aligned to the right and all others to the
+ * left. Values longer than the width are truncated. Widths are in chars, so a char outside the
+ * Basic Multilingual Plane, e.g. an emoji, takes up two.
+ */
+public class FixedWidthDataWriterBuilder {
+
+    private boolean isHeaderIncluded = true;
+    private int defaultFieldWidth = 20;
+    private final Map<String, Integer> fieldWidths = new HashMap<>();
+    private char paddingChar = ' ';
+
+    public static FixedWidthDataWriterBuilder builder() {
+        return new FixedWidthDataWriterBuilder();
+    }
+
+    public static EncodingDataWriter defaultFixedWidthFormat() {
+        return FixedWidthDataWriterBuilder.builder()
+                .build();
+    }
+
+    public FixedWidthDataWriterBuilder outputHeaderRow(final boolean isHeaderIncluded) {
+        this.isHeaderIncluded = isHeaderIncluded;
+        return this;
+    }
+
+    /**
+     * The width of any field without its own width. Defaults to 20.
+     */
+    public FixedWidthDataWriterBuilder defaultFieldWidth(final int defaultFieldWidth) {
+        Utils.checkArgument(defaultFieldWidth > 0, "defaultFieldWidth must be > 0");
+        this.defaultFieldWidth = defaultFieldWidth;
+        return this;
+    }
+
+    /**
+     * The width of the field called fieldName.
+     */
+    public FixedWidthDataWriterBuilder fieldWidth(final String fieldName, final int width) {
+        Objects.requireNonNull(fieldName);
+        Utils.checkArgument(width > 0, "width must be > 0");
+        this.fieldWidths.put(fieldName, width);
+        return this;
+    }
+
+    /**
+     * The char to pad values to their width with. Defaults to ' '.
+     */
+    public FixedWidthDataWriterBuilder paddedWith(final char paddingChar) {
+        this.paddingChar = paddingChar;
+        return this;
+    }
+
+    public EncodingDataWriter build() {
+        final boolean isHeaderIncluded = this.isHeaderIncluded;
+        final int defaultFieldWidth = this.defaultFieldWidth;
+        final Map<String, Integer> fieldWidths = new HashMap<>(this.fieldWidths);
+        final char paddingChar = this.paddingChar;
+
+        //return our encoder factory which conforms to the EncodingDataWriter interface
+        return fieldDefinitions -> {
+            final int[] widths = new int[fieldDefinitions.size()];
+            final boolean[] isRightAligned = new boolean[fieldDefinitions.size()];
+            for (int i = 0; i < widths.length; i++) {
+                final Field field = fieldDefinitions.get(i);
+                widths[i] = fieldWidths.getOrDefault(field.getName(), defaultFieldWidth);
+                isRightAligned[i] = field.getType().isNumeric();
+            }
+            return createEncoder(fieldDefinitions, widths, isRightAligned, paddingChar, isHeaderIncluded);
+        };
+    }
+
+    private static RecordEncoder createEncoder(final List<Field> fieldDefinitions,
+                                               final int[] widths,
+                                               final boolean[] isRightAligned,
+                                               final char paddingChar,
+                                               final boolean isHeaderIncluded) {
+        final List<String> headerRows;
+        if (isHeaderIncluded) {
+            final Utf8Buffer buffer = new Utf8Buffer();
+            for (int i = 0; i < widths.length; i++) {
+                appendPadded(fieldDefinitions.get(i).getName(), widths[i], false, paddingChar, buffer);
+            }
+            headerRows = Collections.singletonList(buffer.toString());
+        } else {
+            headerRows = Collections.emptyList();
+        }
+
+        return new RecordEncoder() {
+            @Override
+            public List<String> getHeaderRows() {
+                return headerRows;
+            }
+
+            @Override
+            public void encodeRecord(final Record record, final Utf8Buffer buffer) {
+                for (int i = 0; i < widths.length; i++) {
+                    final CharSequence value;
+                    if (record.isLong(i) || record.isDouble(i)) {
+                        final StringBuilder stringBuilder = buffer.getScratchBuilder();
+                        record.appendValue(i, stringBuilder);
+                        value = stringBuilder;
+                    } else {
+                        value = record.getValue(i);
+                    }
+                    appendPadded(value, widths[i], isRightAligned[i], paddingChar, buffer);
+                }
+            }
+
+            @Override
+            public List<String> getFooterRows() {
+                return Collections.emptyList();
+            }
+        };
+    }
+
+    private static void appendPadded(final CharSequence value,
+                                     final int width,
+                                     final boolean isRightAligned,
+                                     final char paddingChar,
+                                     final Utf8Buffer buffer) {
+        int length = value != null
+                ? Math.min(value.length(), width)
+                : 0;
+        if (length > 0 && length < value.length() && Character.isHighSurrogate(value.charAt(length - 1))) {
+            // Don't split a surrogate pair
+            length--;
+        }
+        if (isRightAligned) {
+            appendPadding(width - length, paddingChar, buffer);
+        }
+        if (length > 0) {
+            buffer.append(value, 0, length);
+        }
+        if (!isRightAligned) {
+            appendPadding(width - length, paddingChar, buffer);
+        }
+    }
+
+    private static void appendPadding(final int count, final char paddingChar, final Utf8Buffer buffer) {
+        for (int i = 0; i < count; i++) {
+            buffer.append(paddingChar);
+        }
+    }
+}
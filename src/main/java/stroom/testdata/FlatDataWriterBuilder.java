@@ -1,21 +1,26 @@
 package stroom.testdata;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Objects;
 
+/**
+ * Produces delimited data, e.g. CSV, with one record per row. By default values are only
+ * enclosed in '"' if they contain the delimiter, the enclosing chars or a line break, with
+ * any enclosing chars in the value doubled, as described in RFC 4180. See {@link QuoteMode}.
+ */
 public class FlatDataWriterBuilder {
     private boolean isHeaderIncluded = true;
     private String delimiter = ",";
-    private Optional<String> optEnclosingChars = Optional.empty();
+    private String enclosingChars = null;
+    private QuoteMode quoteMode = null;
+    private Character escapeChar = null;
 
     public static FlatDataWriterBuilder builder() {
         return new FlatDataWriterBuilder();
     }
 
-    public static DataWriter defaultCsvFormat() {
+    public static EncodingDataWriter defaultCsvFormat() {
         return FlatDataWriterBuilder.builder()
                         .outputHeaderRow(true)
                         .delimitedBy(",")
@@ -28,56 +33,293 @@ public class FlatDataWriterBuilder {
     }
 
     public FlatDataWriterBuilder delimitedBy(final String delimiter) {
-        //TODO need to consider escaping instance of the delimiter in values,
         this.delimiter = delimiter;
         return this;
     }
 
+    /**
+     * @param enclosingChars The chars to enclose values in, '"' if not set. Unless a
+     *                       {@link #quoteMode(QuoteMode)} is set every value is enclosed.
+     */
     public FlatDataWriterBuilder enclosedBy(final String enclosingChars) {
-        //TODO need to consider escaping instance of the delimiter in values,
-        this.optEnclosingChars = Optional.of(enclosingChars);
+        this.enclosingChars = enclosingChars;
         return this;
     }
 
-    private Function<Record, String> getDataMapper() {
-        final Function<String, String> enclosureMapper = getEnclosureMapper();
-
-        return record ->
-                record.getValues().stream()
-                        .map(enclosureMapper)
-                        .collect(Collectors.joining(delimiter));
+    /**
+     * @param quoteMode Which values to enclose, see {@link QuoteMode}.
+     */
+    public FlatDataWriterBuilder quoteMode(final QuoteMode quoteMode) {
+        this.quoteMode = quoteMode;
+        return this;
     }
 
-    public DataWriter build() {
-        //return our mapping function which conforms to the DataWriter interface
-        return this::mapRecords;
+    /**
+     * @param escapeChar The char to put before any delimiter, line break or escape char in a value,
+     *                   instead of enclosing it. Only valid with {@link QuoteMode#NONE}, which it
+     *                   makes the default, so {@link #build()} fails if combined with another
+     *                   quote mode or with non-empty enclosing chars. Values are written as they
+     *                   are if not set.
+     */
+    public FlatDataWriterBuilder escapedBy(final char escapeChar) {
+        this.escapeChar = escapeChar;
+        return this;
     }
 
-    private Stream<String> mapRecords(List<Field> fieldDefinitions, Stream<Record> recordStream) {
-        Function<Record, String> dataMapper = getDataMapper();
+    public EncodingDataWriter build() {
+        final ValueWriter valueWriter = new ValueWriter(
+                delimiter,
+                enclosingChars != null
+                        ? enclosingChars
+                        : "\"",
+                quoteMode != null
+                        ? quoteMode
+                        : getDefaultQuoteMode(),
+                escapeChar);
+        final boolean isHeaderIncluded = this.isHeaderIncluded;
+
+        //return our encoder factory which conforms to the EncodingDataWriter interface
+        return fieldDefinitions -> createEncoder(fieldDefinitions, valueWriter, isHeaderIncluded);
+    }
 
-        Stream<String> dataStream = recordStream.map(dataMapper);
-        if (isHeaderIncluded) {
-            return Stream.concat(generateHeaderRow(fieldDefinitions), dataStream);
+    private QuoteMode getDefaultQuoteMode() {
+        if (enclosingChars == null) {
+            return escapeChar != null
+                    ? QuoteMode.NONE
+                    : QuoteMode.MINIMAL;
         } else {
-            return dataStream;
+            // Enclosing chars have always meant every value is enclosed
+            return enclosingChars.isEmpty()
+                    ? QuoteMode.NONE
+                    : QuoteMode.ALL;
+        }
+    }
+
+    private static RecordEncoder createEncoder(final List<Field> fieldDefinitions,
+                                               final ValueWriter valueWriter,
+                                               final boolean isHeaderIncluded) {
+        final List<String> headerRows = isHeaderIncluded
+                ? Collections.singletonList(generateHeaderRow(fieldDefinitions, valueWriter))
+                : Collections.emptyList();
+
+        // Plain numbers can be written straight out if they can't contain anything to escape
+        final boolean[] isPlainNumber = new boolean[fieldDefinitions.size()];
+        for (int i = 0; i < isPlainNumber.length; i++) {
+            final Field field = fieldDefinitions.get(i);
+            isPlainNumber[i] = valueWriter.isNumberSafe()
+                    && (field.getValueSlot() == Field.ValueSlot.DOUBLE
+                    || (field.getValueSlot() == Field.ValueSlot.LONG && field.isDecimal()));
+        }
+
+        return new RecordEncoder() {
+            @Override
+            public List<String> getHeaderRows() {
+                return headerRows;
+            }
+
+            @Override
+            public void encodeRecord(final Record record, final Utf8Buffer buffer) {
+                // Append the values straight from the record so typed values are never held as strings
+                for (int i = 0; i < record.size(); i++) {
+                    if (i > 0) {
+                        buffer.append(valueWriter.delimiter);
+                    }
+                    if (record.isLong(i) || record.isDouble(i)) {
+                        if (isPlainNumber[i]) {
+                            record.appendValue(i, buffer);
+                        } else {
+                            final StringBuilder stringBuilder = buffer.getScratchBuilder();
+                            record.appendValue(i, stringBuilder);
+                            valueWriter.write(stringBuilder, buffer);
+                        }
+                    } else {
+                        valueWriter.write(record.getValue(i), buffer);
+                    }
+                }
+            }
+
+            @Override
+            public List<String> getFooterRows() {
+                return Collections.emptyList();
+            }
+        };
+    }
+
+    private static String generateHeaderRow(final List<Field> fieldDefinitions, final ValueWriter valueWriter) {
+        final Utf8Buffer buffer = new Utf8Buffer();
+        for (int i = 0; i < fieldDefinitions.size(); i++) {
+            if (i > 0) {
+                buffer.append(valueWriter.delimiter);
+            }
+            valueWriter.write(fieldDefinitions.get(i).getName(), buffer);
         }
+        return buffer.toString();
     }
 
-    private Stream<String> generateHeaderRow(final List<Field> fieldDefinitions) {
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
-        final Function<String, String> enclosureMapper = getEnclosureMapper();
-        String header = fieldDefinitions.stream()
-                .map(Field::getName)
-                .map(enclosureMapper)
-                .collect(Collectors.joining(delimiter));
-        return Stream.of(header);
+    /**
+     * Which values to enclose in the enclosing chars.
+     */
+    public enum QuoteMode {
+        /**
+         * Only values containing the delimiter, the enclosing chars, '\r' or '\n', with any
+         * enclosing chars in the value doubled.
+         */
+        MINIMAL,
+        /**
+         * Every value, with any enclosing chars in the value doubled.
+         */
+        ALL,
+        /**
+         * No values. Any delimiter, '\r', '\n' or escape char in a value is preceded by the escape
+         * char, if there is one, see {@link FlatDataWriterBuilder#escapedBy(char)}.
+         */
+        NONE
     }
 
-    private Function<String, String> getEnclosureMapper() {
-        return optEnclosingChars.map(chars ->
-                (Function<String, String>) str ->
-                        (chars + str + chars))
-                .orElse(Function.identity());
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Writes a value, enclosing or escaping it as required, in a single pass over its chars for
+     * values that need nothing doing and two for those that do.
+     */
+    private static final class ValueWriter {
+        private final String delimiter;
+        private final String enclosingChars;
+        private final QuoteMode quoteMode;
+        private final Character escapeChar;
+
+        private ValueWriter(final String delimiter,
+                            final String enclosingChars,
+                            final QuoteMode quoteMode,
+                            final Character escapeChar) {
+            Objects.requireNonNull(delimiter);
+            Objects.requireNonNull(enclosingChars);
+            Utils.checkArgument(!delimiter.isEmpty(), "delimiter must not be empty");
+            Utils.checkArgument(quoteMode == QuoteMode.NONE || !enclosingChars.isEmpty(),
+                    "enclosingChars must not be empty with quote mode {}", quoteMode);
+            Utils.checkArgument(!delimiter.equals(enclosingChars),
+                    "delimiter and enclosingChars must be different, '{}'", delimiter);
+            Utils.checkArgument(escapeChar == null || quoteMode == QuoteMode.NONE,
+                    "escapeChar '{}' can only be used with quote mode NONE, not {}", escapeChar, quoteMode);
+            Utils.checkArgument(escapeChar == null || delimiter.indexOf(escapeChar) == -1,
+                    "escapeChar '{}' must not be in the delimiter '{}'", escapeChar, delimiter);
+            this.delimiter = delimiter;
+            this.enclosingChars = enclosingChars;
+            this.quoteMode = Objects.requireNonNull(quoteMode);
+            this.escapeChar = escapeChar;
+        }
+
+        /**
+         * @return True if the text of a number never needs enclosing or escaping, i.e. no chars of
+         * a number can start a delimiter, enclosing chars or escape char.
+         */
+        private boolean isNumberSafe() {
+            if (quoteMode == QuoteMode.ALL) {
+                return false;
+            }
+            final String numberChars = "0123456789-+.EInfinityNaN";
+            return numberChars.indexOf(delimiter.charAt(0)) == -1
+                    && (quoteMode == QuoteMode.NONE || numberChars.indexOf(enclosingChars.charAt(0)) == -1)
+                    && (escapeChar == null || quoteMode != QuoteMode.NONE || numberChars.indexOf(escapeChar) == -1);
+        }
+
+        private void write(final CharSequence value, final Utf8Buffer buffer) {
+            if (value == null) {
+                if (quoteMode == QuoteMode.ALL) {
+                    buffer.append(enclosingChars)
+                            .append(enclosingChars);
+                }
+                return;
+            }
+            switch (quoteMode) {
+                case ALL:
+                    writeEnclosed(value, buffer);
+                    break;
+                case MINIMAL:
+                    if (needsEnclosing(value)) {
+                        writeEnclosed(value, buffer);
+                    } else {
+                        buffer.append(value);
+                    }
+                    break;
+                default:
+                    if (escapeChar != null) {
+                        writeEscaped(value, buffer);
+                    } else {
+                        buffer.append(value);
+                    }
+            }
+        }
+
+        private boolean needsEnclosing(final CharSequence value) {
+            final char delimiterStart = delimiter.charAt(0);
+            final char enclosingStart = enclosingChars.charAt(0);
+            final int length = value.length();
+            for (int i = 0; i < length; i++) {
+                final char c = value.charAt(i);
+                if (c == '\n'
+                        || c == '\r'
+                        || (c == delimiterStart && matches(value, i, delimiter))
+                        || (c == enclosingStart && matches(value, i, enclosingChars))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void writeEnclosed(final CharSequence value, final Utf8Buffer buffer) {
+            buffer.append(enclosingChars);
+            final char enclosingStart = enclosingChars.charAt(0);
+            final int length = value.length();
+            int runStart = 0;
+            int i = 0;
+            while (i < length) {
+                if (value.charAt(i) == enclosingStart && matches(value, i, enclosingChars)) {
+                    // Double up the enclosing chars
+                    i += enclosingChars.length();
+                    buffer.append(value, runStart, i);
+                    buffer.append(enclosingChars);
+                    runStart = i;
+                } else {
+                    i++;
+                }
+            }
+            buffer.append(value, runStart, length);
+            buffer.append(enclosingChars);
+        }
+
+        private void writeEscaped(final CharSequence value, final Utf8Buffer buffer) {
+            final char escape = escapeChar;
+            final char delimiterStart = delimiter.charAt(0);
+            final int length = value.length();
+            int runStart = 0;
+            for (int i = 0; i < length; i++) {
+                final char c = value.charAt(i);
+                if (c == '\n'
+                        || c == '\r'
+                        || c == escape
+                        || (c == delimiterStart && matches(value, i, delimiter))) {
+                    buffer.append(value, runStart, i);
+                    buffer.append(escape);
+                    runStart = i;
+                }
+            }
+            buffer.append(value, runStart, length);
+        }
+
+        private static boolean matches(final CharSequence value, final int start, final String str) {
+            final int strLength = str.length();
+            if (start + strLength > value.length()) {
+                return false;
+            }
+            for (int i = 1; i < strLength; i++) {
+                if (value.charAt(start + i) != str.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 }
@@ -4,7 +4,6 @@ import org.junit.jupiter.api.extension.BeforeAllCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
@@ -13,8 +12,8 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -23,11 +22,13 @@ public class FlatFileTestDataExtension implements BeforeAllCallback {
 
     private Path folder = null;
     private final int numberOfFiles;
+    private final boolean isParallel;
     private final Consumer<Consumer<String>> testDataGenerator;
     private final List<Path> dataFiles = new ArrayList<>();
 
     private FlatFileTestDataExtension(final Builder builder) {
         this.numberOfFiles = builder.numberOfFiles;
+        this.isParallel = builder.isParallel;
         this.testDataGenerator = builder.testDataGenerator;
     }
 
@@ -36,22 +37,28 @@ public class FlatFileTestDataExtension implements BeforeAllCallback {
         final String testName = context.getDisplayName();
         this.folder = Files.createTempDirectory(testName + "-");
         for (int x = 0; x < numberOfFiles; x++) {
+            dataFiles.add(Files.createTempFile(folder, testName,""));
+        }
 
-            final String filename = String.format("%s.csv", UUID.randomUUID().toString());
-            final File file = Files.createTempFile(folder, testName,"").toFile();
-
-            try (final BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file)))) {
-
-                testDataGenerator.accept(s -> {
-                    try {
-                        bw.write(String.format("%s\n", s));
-                    } catch (final IOException e) {
-                        fail(e.getLocalizedMessage());
-                    }
-                });
-            }
+        // Each file is independent so can be generated on its own thread if the generator allows it
+        final Stream<Path> fileStream = isParallel
+                ? dataFiles.parallelStream()
+                : dataFiles.stream();
+        fileStream.forEach(this::writeDataFile);
+    }
 
-            dataFiles.add(file.toPath());
+    private void writeDataFile(final Path file) {
+        try (final BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file.toFile())))) {
+
+            testDataGenerator.accept(s -> {
+                try {
+                    bw.write(String.format("%s\n", s));
+                } catch (final IOException e) {
+                    fail(e.getLocalizedMessage());
+                }
+            });
+        } catch (final IOException e) {
+            fail(e.getLocalizedMessage());
         }
     }
 
@@ -111,6 +118,7 @@ public class FlatFileTestDataExtension implements BeforeAllCallback {
     public static final class Builder {
 
         private int numberOfFiles = 10;
+        private boolean isParallel = false;
         private Consumer<Consumer<String>> testDataGenerator;
 
         public Builder numberOfFiles(final int value) {
@@ -118,6 +126,15 @@ public class FlatFileTestDataExtension implements BeforeAllCallback {
             return this;
         }
 
+        /**
+         * Generate the files concurrently. The test data generator must be thread safe, as
+         * a {@link DataGenerator.DefinitionBuilder} built within the generator is.
+         */
+        public Builder inParallel() {
+            this.isParallel = true;
+            return this;
+        }
+
         public Builder testDataGenerator(final Consumer<Consumer<String>> value) {
             this.testDataGenerator = value;
             return this;
@@ -0,0 +1,110 @@
+package stroom.testdata;
+
+import com.github.javafaker.Faker;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The state made available to a {@link Field} when it generates a value. Each run of
+ * {@link DataGenerator.DefinitionBuilder#generate()} creates its own contexts (one per
+ * thread when multi threaded) so independent definitions can generate at the same time
+ * without sharing any random state.
+ * <p>
+ * A context is confined to a single thread so is not thread safe.
+ */
+public class GenerationContext {
+
+    private static final ThreadLocal<GenerationContext> STANDALONE_CONTEXT = ThreadLocal.withInitial(() ->
+            new GenerationContext(ThreadLocalRandomSource.INSTANCE, Locale.getDefault(), null));
+
+    private final RandomSource random;
+    private final Locale locale;
+    private final Long masterSeed;
+    private Faker faker = null;
+    private long rowNumber = 0;
+
+    /**
+     * @param random     The source of randomness for all fields. Must be seedable if
+     *                   masterSeed is non-null.
+     * @param locale     The locale to use for faker values
+     * @param masterSeed If non-null, each row is given its own random state derived from this
+     *                   seed and the row number, see {@link #isRowSeeded()}.
+     */
+    GenerationContext(final RandomSource random,
+                      final Locale locale,
+                      final Long masterSeed) {
+        this.random = Objects.requireNonNull(random);
+        this.locale = Objects.requireNonNull(locale);
+        this.masterSeed = masterSeed;
+    }
+
+    /**
+     * @return A context for the current thread for use when a {@link Field} is used outside
+     * of {@link DataGenerator.DefinitionBuilder#generate()}. It is un-seeded and never starts a row.
+     */
+    static GenerationContext standalone() {
+        return STANDALONE_CONTEXT.get();
+    }
+
+    /**
+     * Called before the values for each row are generated.
+     * @param rowNumber The one based number of the row about to be generated.
+     */
+    void beginRow(final long rowNumber) {
+        this.rowNumber = rowNumber;
+        if (masterSeed != null) {
+            random.setSeed(mixSeed(masterSeed, rowNumber));
+        }
+    }
+
+    /**
+     * @return The random number generator to use for all random values.
+     */
+    public RandomSource getRandom() {
+        return random;
+    }
+
+    /**
+     * @return A {@link Faker} that uses this context's random number generator and locale.
+     * It is created on first use as building a {@link Faker} is expensive.
+     */
+    public Faker getFaker() {
+        if (faker == null) {
+            faker = new Faker(locale, random.asRandom());
+        }
+        return faker;
+    }
+
+    /**
+     * @return The locale to use when generating values.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @return The one based number of the row being generated, or zero if not generating a row.
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @return True if each row has its own random state derived from the master seed and the
+     * row number, i.e. when multi threaded. In this case rows may be generated in any order so
+     * stateful fields should derive their value from {@link #getRowNumber()} rather than from
+     * the values they have previously supplied.
+     */
+    public boolean isRowSeeded() {
+        return masterSeed != null && rowNumber > 0;
+    }
+
+    /**
+     * Derives a well mixed seed for a row from the master seed and the row number using
+     * the SplitMix64 finaliser, so adjacent rows get unrelated random sequences.
+     */
+    static long mixSeed(final long seed, final long rowNumber) {
+        return AbstractRandomSource.splitMix64(seed + (rowNumber * 0x9E3779B97F4A7C15L));
+    }
+}
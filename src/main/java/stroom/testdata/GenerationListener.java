@@ -0,0 +1,76 @@
+package stroom.testdata;
+
+/**
+ * Receives timings and progress from a run of {@link DataGenerator.DefinitionBuilder#generate()},
+ * see {@link DataGenerator.DefinitionBuilder#withListener(GenerationListener)} and
+ * {@link GenerationMetrics}. All methods do nothing by default.
+ * <p>
+ * When multi threaded, or when the consumer encodes on its own threads, methods will be called
+ * concurrently so implementations must be thread safe.
+ */
+public interface GenerationListener {
+
+    /**
+     * The default listener, which does nothing. Nothing is timed when it is used.
+     */
+    GenerationListener NO_OP = new GenerationListener() {
+    };
+
+    /**
+     * @return The interval between rows whose field values are timed, e.g. 100 to time the
+     * values of one row in every hundred. Timing every field of every row would noticeably
+     * slow generation.
+     */
+    default int getFieldSampleInterval() {
+        return 100;
+    }
+
+    /**
+     * Called before any rows are generated.
+     * @param rowCount The number of rows to generate, {@link Long#MAX_VALUE} if unbounded.
+     */
+    default void onStart(final long rowCount) {
+    }
+
+    /**
+     * Called for each value of a sampled row, see {@link #getFieldSampleInterval()}.
+     * @param field The field that supplied the value.
+     * @param nanos The time taken to supply the value.
+     */
+    default void onFieldSampled(final Field field, final long nanos) {
+    }
+
+    /**
+     * Called for each record encoded by an {@link EncodingDataWriter}'s {@link RecordEncoder}.
+     * Data writers that are not {@link EncodingDataWriter}s are not timed.
+     * @param nanos     The time taken to encode the record.
+     * @param byteCount The number of UTF-8 bytes the record was encoded to.
+     */
+    default void onRecordEncoded(final long nanos, final long byteCount) {
+    }
+
+    /**
+     * Called once the consumer has finished, or once for each shard with a
+     * {@link ShardedOutputConsumer}.
+     * @param nanos The time spent in the consumer, excluding the time spent waiting for rows to
+     *              be generated. It includes the time spent encoding records if the consumer
+     *              encodes them.
+     */
+    default void onConsumerTime(final long nanos) {
+    }
+
+    /**
+     * Called periodically as rows are generated.
+     * @param rowsGenerated The approximate number of rows generated so far.
+     * @param rowCount      The total number of rows to generate.
+     */
+    default void onProgress(final long rowsGenerated, final long rowCount) {
+    }
+
+    /**
+     * Called once all rows have been generated and consumed.
+     * @param elapsedNanos The time taken by the whole run.
+     */
+    default void onComplete(final long rowCount, final long elapsedNanos) {
+    }
+}
@@ -0,0 +1,220 @@
+package stroom.testdata;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link GenerationListener} that accumulates the timings of a run so they can be read while
+ * it is in progress or once it has finished, e.g.
+ * <pre>
+ * final GenerationMetrics metrics = new GenerationMetrics();
+ * DataGenerator.buildDefinition()
+ *     ...
+ *     .withListener(metrics)
+ *     .generate();
+ * LOGGER.info("{}", metrics);
+ * </pre>
+ */
+public class GenerationMetrics implements GenerationListener {
+
+    private final int fieldSampleInterval;
+    private final ConcurrentMap<String, FieldMetrics> fieldMetricsMap = new ConcurrentHashMap<>();
+    private final LongAdder encodedRecordCount = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder encodedByteCount = new LongAdder();
+    private final LongAdder consumerNanos = new LongAdder();
+    private volatile long rowCount = 0;
+    private volatile long rowsGenerated = 0;
+    private volatile long startNanos = 0;
+    private volatile long elapsedNanos = -1;
+
+    public GenerationMetrics() {
+        this(100);
+    }
+
+    /**
+     * @param fieldSampleInterval See {@link GenerationListener#getFieldSampleInterval()}.
+     */
+    public GenerationMetrics(final int fieldSampleInterval) {
+        Utils.checkArgument(fieldSampleInterval > 0, "fieldSampleInterval must be > 0");
+        this.fieldSampleInterval = fieldSampleInterval;
+    }
+
+    @Override
+    public int getFieldSampleInterval() {
+        return fieldSampleInterval;
+    }
+
+    @Override
+    public void onStart(final long rowCount) {
+        this.rowCount = rowCount;
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void onFieldSampled(final Field field, final long nanos) {
+        fieldMetricsMap.computeIfAbsent(field.getName(), name -> new FieldMetrics())
+                .add(nanos);
+    }
+
+    @Override
+    public void onRecordEncoded(final long nanos, final long byteCount) {
+        encodedRecordCount.increment();
+        encodeNanos.add(nanos);
+        encodedByteCount.add(byteCount);
+    }
+
+    @Override
+    public void onConsumerTime(final long nanos) {
+        consumerNanos.add(nanos);
+    }
+
+    @Override
+    public void onProgress(final long rowsGenerated, final long rowCount) {
+        // Progress may be reported out of order when multi threaded
+        if (rowsGenerated > this.rowsGenerated) {
+            this.rowsGenerated = rowsGenerated;
+        }
+    }
+
+    @Override
+    public void onComplete(final long rowCount, final long elapsedNanos) {
+        this.rowsGenerated = rowCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return The approximate number of rows generated so far.
+     */
+    public long getRowsGenerated() {
+        return rowsGenerated;
+    }
+
+    public boolean isComplete() {
+        return elapsedNanos >= 0;
+    }
+
+    /**
+     * @return The time taken by the run, or so far if it is still in progress.
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(getElapsedNanos());
+    }
+
+    public double getRowsPerSecond() {
+        return perSecond(rowsGenerated);
+    }
+
+    /**
+     * @return The rate that records were encoded to bytes, which only includes records encoded
+     * by an {@link EncodingDataWriter}.
+     */
+    public double getEncodedBytesPerSecond() {
+        return perSecond(encodedByteCount.sum());
+    }
+
+    public long getEncodedByteCount() {
+        return encodedByteCount.sum();
+    }
+
+    /**
+     * @return The total time spent encoding records, over all threads.
+     */
+    public Duration getEncodeTime() {
+        return Duration.ofNanos(encodeNanos.sum());
+    }
+
+    /**
+     * @return The total time spent in the consumer, see {@link GenerationListener#onConsumerTime(long)}.
+     */
+    public Duration getConsumerTime() {
+        return Duration.ofNanos(consumerNanos.sum());
+    }
+
+    /**
+     * @return The mean time to encode a record in nanoseconds.
+     */
+    public double getMeanEncodeNanos() {
+        final long count = encodedRecordCount.sum();
+        return count == 0
+                ? 0
+                : (double) encodeNanos.sum() / count;
+    }
+
+    /**
+     * @return The mean time taken to supply a value in nanoseconds, keyed by the name of
+     * each sampled field.
+     */
+    public Map<String, Double> getMeanFieldNanos() {
+        final Map<String, Double> meanFieldNanos = new LinkedHashMap<>();
+        fieldMetricsMap.forEach((name, fieldMetrics) -> meanFieldNanos.put(name, fieldMetrics.getMean()));
+        return Collections.unmodifiableMap(meanFieldNanos);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder()
+                .append("rows: ").append(rowsGenerated).append("/").append(rowCount)
+                .append(", elapsed: ").append(getElapsed())
+                .append(", rows/sec: ").append(Math.round(getRowsPerSecond()))
+                .append(", encoded bytes/sec: ").append(Math.round(getEncodedBytesPerSecond()))
+                .append(", mean encode ns: ").append(Math.round(getMeanEncodeNanos()))
+                .append(", consumer time: ").append(getConsumerTime())
+                .append(", mean field ns: {");
+        boolean isFirst = true;
+        for (final Map.Entry<String, Double> entry : getMeanFieldNanos().entrySet()) {
+            if (!isFirst) {
+                stringBuilder.append(", ");
+            }
+            stringBuilder.append(entry.getKey()).append(": ").append(Math.round(entry.getValue()));
+            isFirst = false;
+        }
+        return stringBuilder.append("}").toString();
+    }
+
+    private long getElapsedNanos() {
+        final long elapsedNanos = this.elapsedNanos;
+        if (elapsedNanos >= 0) {
+            return elapsedNanos;
+        } else if (startNanos == 0) {
+            return 0;
+        } else {
+            return System.nanoTime() - startNanos;
+        }
+    }
+
+    private double perSecond(final long count) {
+        final long elapsedNanos = getElapsedNanos();
+        return elapsedNanos == 0
+                ? 0
+                : count * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static class FieldMetrics {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private void add(final long nanos) {
+            this.count.increment();
+            this.nanos.add(nanos);
+        }
+
+        private double getMean() {
+            final long count = this.count.sum();
+            return count == 0
+                    ? 0
+                    : (double) nanos.sum() / count;
+        }
+    }
+}
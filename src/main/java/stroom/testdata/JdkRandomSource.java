@@ -0,0 +1,51 @@
+package stroom.testdata;
+
+import java.util.Random;
+
+/**
+ * {@link RandomSource} backed by {@link Random} so seeded values match those from
+ * earlier versions of this library.
+ */
+class JdkRandomSource extends AbstractRandomSource {
+
+    private final Random random;
+
+    JdkRandomSource(final long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public int nextInt() {
+        return random.nextInt();
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+
+    @Override
+    public void setSeed(final long seed) {
+        random.setSeed(seed);
+    }
+
+    @Override
+    public Random asRandom() {
+        return random;
+    }
+}
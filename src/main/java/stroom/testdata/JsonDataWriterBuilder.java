@@ -0,0 +1,232 @@
+package stroom.testdata;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Produces newline delimited JSON (NDJSON), one object per record, like:
+ * <pre>
+ * {@code
+ * {"field1":"field1-value1","field2":123,"field3":true}
+ * {"field1":"field1-value2","field2":456,"field3":false}
+ * }
+ * </pre>
+ * or, with {@link #outputAsArray(boolean)}, a JSON array of the same objects:
+ * <pre>
+ * {@code
+ * [
+ * {"field1":"field1-value1","field2":123,"field3":true}
+ * ,{"field1":"field1-value2","field2":456,"field3":false}
+ * ]
+ * }
+ * </pre>
+ * {@link FieldType#LONG} and {@link FieldType#DOUBLE} values are written as numbers and
+ * {@link FieldType#BOOLEAN} values as true or false, all other values as strings. Null values
+ * and doubles that are not finite are written as null.
+ */
+public class JsonDataWriterBuilder {
+
+    private boolean isArray = false;
+
+    public static JsonDataWriterBuilder builder() {
+        return new JsonDataWriterBuilder();
+    }
+
+    public static EncodingDataWriter defaultNdjsonFormat() {
+        return JsonDataWriterBuilder.builder()
+                .build();
+    }
+
+    public static EncodingDataWriter defaultJsonArrayFormat() {
+        return JsonDataWriterBuilder.builder()
+                .outputAsArray(true)
+                .build();
+    }
+
+    /**
+     * @param isArray True to enclose the records in a JSON array, rather than writing them as
+     *                NDJSON. Every record but the first of each file is prefixed with ','. Each
+     *                file of a {@link ShardedFileOutputConsumerBuilder} or entry of a
+     *                {@link StroomZipOutputConsumerBuilder} is its own array. Otherwise the first
+     *                record is found from its row number or, for records without one, e.g. made
+     *                with {@link Record#Record(List, List)}, is the first such record through the
+     *                encoder.
+     */
+    public JsonDataWriterBuilder outputAsArray(final boolean isArray) {
+        this.isArray = isArray;
+        return this;
+    }
+
+    public EncodingDataWriter build() {
+        final boolean isArray = this.isArray;
+        //return our encoder factory which conforms to the EncodingDataWriter interface
+        return fieldDefinitions -> createEncoder(fieldDefinitions, isArray);
+    }
+
+    private static RecordEncoder createEncoder(final List<Field> fields, final boolean isArray) {
+        // The name part of each member, e.g. {"name": then ,"name": for the rest
+        final String[] nameFragments = new String[fields.size()];
+        for (int i = 0; i < nameFragments.length; i++) {
+            final Utf8Buffer buffer = new Utf8Buffer(64);
+            buffer.append(i == 0 ? "{\"" : ",\"");
+            appendEscaped(fields.get(i).getName(), buffer);
+            buffer.append("\":");
+            nameFragments[i] = buffer.toString();
+        }
+        final List<String> headerRows = isArray
+                ? Collections.singletonList("[")
+                : Collections.emptyList();
+        final List<String> footerRows = isArray
+                ? Collections.singletonList("]")
+                : Collections.emptyList();
+
+        // For records without a row number, which must be encoded in order
+        final AtomicBoolean isFirstUnnumberedRecord = new AtomicBoolean(true);
+
+        final ValueKind[] valueKinds = new ValueKind[fields.size()];
+        for (int i = 0; i < valueKinds.length; i++) {
+            valueKinds[i] = ValueKind.of(fields.get(i));
+        }
+
+        return new RecordEncoder() {
+            @Override
+            public List<String> getHeaderRows() {
+                return headerRows;
+            }
+
+            @Override
+            public void encodeRecord(final Record record, final Utf8Buffer buffer) {
+                final boolean isFirstRecord = isArray
+                        && (record.getRowNumber() > 0
+                        ? record.getRowNumber() == 1
+                        : isFirstUnnumberedRecord.compareAndSet(true, false));
+                encodeRecord(record, isFirstRecord, buffer);
+            }
+
+            @Override
+            public void encodeRecord(final Record record, final boolean isFirstRecord, final Utf8Buffer buffer) {
+                if (isArray && !isFirstRecord) {
+                    buffer.append(',');
+                }
+                if (nameFragments.length == 0) {
+                    buffer.append('{');
+                }
+                for (int i = 0; i < nameFragments.length; i++) {
+                    buffer.append(nameFragments[i]);
+                    if (record.isLong(i)) {
+                        switch (valueKinds[i]) {
+                            case NUMBER:
+                                buffer.append(record.getLong(i));
+                                break;
+                            case BOOLEAN:
+                                buffer.append(record.getLong(i) != 0 ? "true" : "false");
+                                break;
+                            default:
+                                final StringBuilder stringBuilder = buffer.getScratchBuilder();
+                                record.appendValue(i, stringBuilder);
+                                appendString(stringBuilder, buffer);
+                        }
+                    } else if (record.isDouble(i)) {
+                        final double value = record.getDouble(i);
+                        if (Double.isFinite(value)) {
+                            buffer.append(buffer.getScratchBuilder().append(value));
+                        } else {
+                            // JSON has no NaN or infinity
+                            buffer.append("null");
+                        }
+                    } else {
+                        final String value = record.getValue(i);
+                        if (value != null) {
+                            appendString(value, buffer);
+                        } else {
+                            buffer.append("null");
+                        }
+                    }
+                }
+                buffer.append('}');
+            }
+
+            @Override
+            public List<String> getFooterRows() {
+                return footerRows;
+            }
+        };
+    }
+
+    private static void appendString(final CharSequence value, final Utf8Buffer buffer) {
+        buffer.append('"');
+        appendEscaped(value, buffer);
+        buffer.append('"');
+    }
+
+    /**
+     * Appends value to buffer in one pass, copying runs of chars that need no escaping as they are.
+     */
+    private static void appendEscaped(final CharSequence value, final Utf8Buffer buffer) {
+        final int length = value.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            buffer.append(value, runStart, i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                case '\b':
+                    buffer.append("\\b");
+                    break;
+                case '\f':
+                    buffer.append("\\f");
+                    break;
+                default:
+                    // Other control chars, plus the line and paragraph separators that are
+                    // valid JSON but not valid JavaScript
+                    buffer.append("\\u");
+                    final String hex = Integer.toHexString(c);
+                    for (int j = hex.length(); j < 4; j++) {
+                        buffer.append('0');
+                    }
+                    buffer.append(hex);
+            }
+            runStart = i + 1;
+        }
+        buffer.append(value, runStart, length);
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * How to write a field's values when they are held as longs.
+     */
+    private enum ValueKind {
+        NUMBER,
+        BOOLEAN,
+        STRING;
+
+        private static ValueKind of(final Field field) {
+            if (field.getType() == FieldType.BOOLEAN) {
+                return BOOLEAN;
+            } else if (field.getType() == FieldType.LONG && field.isDecimal()) {
+                return NUMBER;
+            } else {
+                return STRING;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package stroom.testdata;
+
+/**
+ * Renders a value held as a long, e.g. an epoch millis timestamp, as text. Appending to
+ * a {@link StringBuilder} allows values to be written without creating a String for each one.
+ */
+@FunctionalInterface
+public interface LongRenderer {
+
+    LongRenderer DECIMAL = (value, stringBuilder) -> stringBuilder.append(value);
+
+    LongRenderer BOOLEAN = (value, stringBuilder) -> stringBuilder.append(value != 0);
+
+    /**
+     * @param value         The value to render
+     * @param stringBuilder The builder to append the text form of value to
+     */
+    void render(long value, StringBuilder stringBuilder);
+}
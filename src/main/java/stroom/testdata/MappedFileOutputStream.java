@@ -0,0 +1,92 @@
+package stroom.testdata;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+
+/**
+ * Writes to a file through a series of memory mapped regions, mapping the next region beyond
+ * the end of the file as each one fills so the file grows a region at a time. Writes are
+ * copies into the page cache rather than a system call per buffer. On close the file is
+ * truncated to the bytes actually written. The channel is not closed.
+ * <p>
+ * Java 8 has no way to unmap a region, so the mapped regions are released when they are
+ * garbage collected. Some platforms, e.g. Windows, will not truncate a file that is still
+ * mapped.
+ * <p>
+ * Not thread safe.
+ */
+class MappedFileOutputStream extends OutputStream {
+
+    private final FileChannel fileChannel;
+    private final long regionSize;
+    private MappedByteBuffer region = null;
+    private long position;
+    private boolean isClosed = false;
+
+    /**
+     * @param fileChannel   Must be open for reading and writing.
+     * @param startPosition The position in the file to start writing at.
+     * @param regionSize    The number of bytes to map at a time.
+     */
+    MappedFileOutputStream(final FileChannel fileChannel,
+                           final long startPosition,
+                           final long regionSize) {
+        Utils.checkArgument(startPosition >= 0, "startPosition must be >= 0");
+        Utils.checkArgument(regionSize > 0 && regionSize <= Integer.MAX_VALUE,
+                "regionSize must be > 0 and <= {}", Integer.MAX_VALUE);
+        this.fileChannel = Objects.requireNonNull(fileChannel);
+        this.position = startPosition;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureRegion();
+        region.put((byte) b);
+        position++;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        int currentOffset = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            ensureRegion();
+            final int count = Math.min(remaining, region.remaining());
+            region.put(bytes, currentOffset, count);
+            currentOffset += count;
+            remaining -= count;
+            position += count;
+        }
+    }
+
+    /**
+     * @return The position in the file that the next byte will be written to.
+     */
+    long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!isClosed) {
+            isClosed = true;
+            region = null;
+            // The last region will have grown the file beyond what we have written
+            fileChannel.truncate(position);
+        }
+    }
+
+    private void ensureRegion() throws IOException {
+        if (isClosed) {
+            throw new IOException("Stream is closed");
+        }
+        if (region == null || !region.hasRemaining()) {
+            // Mapping beyond the end of the file grows it
+            region = fileChannel.map(FileChannel.MapMode.READ_WRITE, position, regionSize);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package stroom.testdata;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of the lines of a UTF-8 file with one value per line, e.g. a pool of tens of
+ * millions of host names. The file is memory-mapped and only the offset of each line is held on
+ * the heap, so it can be used with {@link DataGenerator#randomValueField(String, List)} and
+ * {@link DataGenerator#sequentialValueField(String, List)} without loading the values themselves.
+ * Each value is decoded from the mapped file when it is got. Lines may end with '\n' or "\r\n".
+ * <p>
+ * The file must not change while the list is in use.
+ */
+public final class MappedValueList extends AbstractList<String> implements RandomAccess {
+
+    // Lines never cross a segment so the offsets within a segment fit in an int
+    private static final int DEFAULT_MAX_SEGMENT_BYTES = 1 << 30;
+
+    private final Path file;
+    private final MappedByteBuffer[] segments;
+    // The first line of each segment, plus the line count at the end
+    private final int[] segmentFirstLines;
+    // The end of the last line in each segment
+    private final int[] segmentEnds;
+    private final int[] lineStarts;
+
+    private MappedValueList(final Path file,
+                            final MappedByteBuffer[] segments,
+                            final int[] segmentFirstLines,
+                            final int[] segmentEnds,
+                            final int[] lineStarts) {
+        this.file = file;
+        this.segments = segments;
+        this.segmentFirstLines = segmentFirstLines;
+        this.segmentEnds = segmentEnds;
+        this.lineStarts = lineStarts;
+    }
+
+    /**
+     * Maps file and builds the index of its lines.
+     */
+    public static MappedValueList of(final Path file) throws IOException {
+        return of(file, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    static MappedValueList of(final Path file, final int maxSegmentBytes) throws IOException {
+        Objects.requireNonNull(file);
+        Utils.checkArgument(maxSegmentBytes > 0, "maxSegmentBytes must be > 0");
+
+        final List<MappedByteBuffer> segments = new ArrayList<>();
+        final List<Integer> segmentFirstLines = new ArrayList<>();
+        final List<Integer> segmentEnds = new ArrayList<>();
+        int[] lineStarts = new int[1024];
+        int lineCount = 0;
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            long segmentStart = 0;
+            while (segmentStart < fileSize) {
+                final int windowSize = (int) Math.min(maxSegmentBytes, fileSize - segmentStart);
+                final boolean isLastWindow = segmentStart + windowSize == fileSize;
+                final MappedByteBuffer segment = channel.map(
+                        FileChannel.MapMode.READ_ONLY, segmentStart, windowSize);
+                final int firstLine = lineCount;
+
+                int segmentEnd = 0;
+                boolean isLineStart = true;
+                for (int pos = 0; pos < windowSize; pos++) {
+                    if (isLineStart) {
+                        if (lineCount == lineStarts.length) {
+                            Utils.checkArgument(lineCount < Integer.MAX_VALUE - 8,
+                                    "File {} has too many lines", file);
+                            lineStarts = Arrays.copyOf(
+                                    lineStarts, (int) Math.min(Integer.MAX_VALUE - 8, lineCount * 2L));
+                        }
+                        lineStarts[lineCount++] = pos;
+                        isLineStart = false;
+                    }
+                    if (segment.get(pos) == '\n') {
+                        isLineStart = true;
+                        segmentEnd = pos + 1;
+                    }
+                }
+
+                if (isLastWindow) {
+                    segmentEnd = windowSize;
+                } else {
+                    Utils.checkArgument(segmentEnd > 0,
+                            "File {} has a line longer than {} bytes", file, maxSegmentBytes);
+                    // Leave the partial line at the end of the window to the next segment
+                    while (lineCount > firstLine && lineStarts[lineCount - 1] >= segmentEnd) {
+                        lineCount--;
+                    }
+                }
+                segments.add(segment);
+                segmentFirstLines.add(firstLine);
+                segmentEnds.add(segmentEnd);
+                segmentStart += segmentEnd;
+            }
+        }
+        segmentFirstLines.add(lineCount);
+
+        return new MappedValueList(
+                file,
+                segments.toArray(new MappedByteBuffer[0]),
+                segmentFirstLines.stream().mapToInt(Integer::intValue).toArray(),
+                segmentEnds.stream().mapToInt(Integer::intValue).toArray(),
+                Arrays.copyOf(lineStarts, lineCount));
+    }
+
+    @Override
+    public String get(final int index) {
+        if (index < 0 || index >= lineStarts.length) {
+            throw new IndexOutOfBoundsException(Utils.message(
+                    "Index {} is out of range for {} lines in {}", index, lineStarts.length, file));
+        }
+        final int segmentIdx = getSegmentIdx(index);
+        final MappedByteBuffer segment = segments[segmentIdx];
+        final int start = lineStarts[index];
+        int end = index + 1 < segmentFirstLines[segmentIdx + 1]
+                ? lineStarts[index + 1]
+                : segmentEnds[segmentIdx];
+        if (end > start && segment.get(end - 1) == '\n') {
+            end--;
+        }
+        if (end > start && segment.get(end - 1) == '\r') {
+            end--;
+        }
+
+        // Absolute gets don't touch the position so this is safe across threads
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = segment.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return lineStarts.length;
+    }
+
+    private int getSegmentIdx(final int index) {
+        if (segments.length == 1) {
+            return 0;
+        }
+        // Every segment has at least one line so the first lines are distinct
+        final int idx = Arrays.binarySearch(segmentFirstLines, 0, segments.length, index);
+        return idx >= 0
+                ? idx
+                : -idx - 2;
+    }
+
+    /**
+     * Unlike other lists, doesn't list the values as there could be millions of them.
+     */
+    @Override
+    public String toString() {
+        return "MappedValueList{" +
+                "file=" + file +
+                ", size=" + lineStarts.length +
+                '}';
+    }
+}
@@ -0,0 +1,152 @@
+package stroom.testdata;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * A {@link String#format} format string with a single integer placeholder, compiled once into
+ * a prefix, the number and a suffix so a value can be appended to a builder without parsing the
+ * format or boxing the value each time.
+ * <p>
+ * Only the placeholders %d and %s, with an optional '-' or '0' flag and a width, and the
+ * literals %% and %n are supported, e.g. "user-%s", "user-%05d" or "%-8d|". Any other format
+ * should be passed to {@link String#format} as before.
+ */
+final class NumberFormatTemplate implements LongRenderer {
+
+    private final String prefix;
+    private final String suffix;
+    private final boolean hasPlaceholder;
+    private final int width;
+    private final boolean isLeftJustified;
+    private final char[] padding;
+
+    private NumberFormatTemplate(final String prefix,
+                                 final String suffix,
+                                 final boolean hasPlaceholder,
+                                 final int width,
+                                 final boolean isLeftJustified,
+                                 final boolean isZeroPadded) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.hasPlaceholder = hasPlaceholder;
+        this.width = width;
+        this.isLeftJustified = isLeftJustified;
+        this.padding = new char[width];
+        Arrays.fill(padding, isZeroPadded ? '0' : ' ');
+    }
+
+    /**
+     * @return The compiled template or empty if format uses anything beyond the supported
+     * subset, in which case it must be rendered with {@link String#format}.
+     */
+    static Optional<NumberFormatTemplate> compile(final String format) {
+        final StringBuilder prefix = new StringBuilder();
+        final StringBuilder suffix = new StringBuilder();
+        boolean hasPlaceholder = false;
+        int width = 0;
+        boolean isLeftJustified = false;
+        boolean isZeroPadded = false;
+
+        int i = 0;
+        while (i < format.length()) {
+            final char chr = format.charAt(i++);
+            final StringBuilder literal = hasPlaceholder
+                    ? suffix
+                    : prefix;
+            if (chr != '%') {
+                literal.append(chr);
+                continue;
+            }
+            if (i >= format.length()) {
+                return Optional.empty();
+            }
+            char specChr = format.charAt(i++);
+            if (specChr == '%') {
+                literal.append('%');
+                continue;
+            } else if (specChr == 'n') {
+                literal.append(System.lineSeparator());
+                continue;
+            } else if (hasPlaceholder) {
+                // Only one value is ever supplied
+                return Optional.empty();
+            }
+
+            if (specChr == '-' || specChr == '0') {
+                isLeftJustified = specChr == '-';
+                isZeroPadded = specChr == '0';
+                if (i >= format.length()) {
+                    return Optional.empty();
+                }
+                specChr = format.charAt(i++);
+                if (specChr == '-' || specChr == '0') {
+                    return Optional.empty();
+                }
+            }
+            while (specChr >= '0' && specChr <= '9') {
+                width = width * 10 + (specChr - '0');
+                if (i >= format.length() || width > 1_000) {
+                    return Optional.empty();
+                }
+                specChr = format.charAt(i++);
+            }
+
+            if (specChr == 'd') {
+                // %d uses the digits of the default locale, which we only do for the ASCII digits
+                final char zeroDigit = DecimalFormatSymbols.getInstance(
+                        Locale.getDefault(Locale.Category.FORMAT)).getZeroDigit();
+                if (zeroDigit != '0') {
+                    return Optional.empty();
+                }
+            } else if (specChr != 's' || isZeroPadded) {
+                return Optional.empty();
+            }
+            if ((isLeftJustified || isZeroPadded) && width == 0) {
+                // String.format will throw so leave it to do that
+                return Optional.empty();
+            }
+            hasPlaceholder = true;
+        }
+
+        return Optional.of(new NumberFormatTemplate(
+                prefix.toString(),
+                suffix.toString(),
+                hasPlaceholder,
+                width,
+                isLeftJustified,
+                isZeroPadded));
+    }
+
+    @Override
+    public void render(final long value, final StringBuilder stringBuilder) {
+        stringBuilder.append(prefix);
+        if (hasPlaceholder) {
+            final int start = stringBuilder.length();
+            stringBuilder.append(value);
+            final int padCount = width - (stringBuilder.length() - start);
+            if (padCount > 0) {
+                if (isLeftJustified) {
+                    stringBuilder.append(padding, 0, padCount);
+                } else if (padding[0] == '0' && value < 0) {
+                    // Zeros go between the sign and the digits
+                    stringBuilder.insert(start + 1, padding, 0, padCount);
+                } else {
+                    stringBuilder.insert(start, padding, 0, padCount);
+                }
+            }
+        }
+        stringBuilder.append(suffix);
+    }
+
+    /**
+     * @return The value rendered as a new String, mostly for testing.
+     */
+    String format(final long value) {
+        final StringBuilder stringBuilder = new StringBuilder();
+        render(value, stringBuilder);
+        return stringBuilder.toString();
+    }
+}
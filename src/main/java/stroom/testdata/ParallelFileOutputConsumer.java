@@ -0,0 +1,190 @@
+package stroom.testdata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Writes records to a file by taking them in fixed size chunks and encoding each chunk into
+ * its own buffer on a pool of worker threads. Completed chunks are written to the file in
+ * order, holding at most a fixed number of chunks in memory, so row order is kept while the
+ * encoding runs on all cores. If there is a {@link BlockCompressor} each chunk is also
+ * compressed on the worker thread, with the compressed chunks concatenated in the file.
+ * <p>
+ * See {@link DataGenerator#getParallelFileOutputConsumer(Path, String, int)} and
+ * {@link DataGenerator#getCompressedFileOutputConsumer(Path, String, BlockCompressor, int)}.
+ */
+class ParallelFileOutputConsumer implements EncodedOutputConsumer {
+
+    static final int DEFAULT_CHUNK_SIZE = 2_000;
+
+    private final Path filePath;
+    private final String recordSeparator;
+    private final int chunkSize;
+    private final int threadCount;
+    private final BlockCompressor blockCompressor;
+
+    ParallelFileOutputConsumer(final Path filePath,
+                               final String recordSeparator,
+                               final int chunkSize,
+                               final int threadCount) {
+        this(filePath, recordSeparator, chunkSize, threadCount, null);
+    }
+
+    /**
+     * @param blockCompressor Compresses each chunk, or null to write it uncompressed.
+     */
+    ParallelFileOutputConsumer(final Path filePath,
+                               final String recordSeparator,
+                               final int chunkSize,
+                               final int threadCount,
+                               final BlockCompressor blockCompressor) {
+        Utils.checkArgument(chunkSize > 0, "chunkSize must be > 0");
+        Utils.checkArgument(threadCount > 0, "threadCount must be > 0");
+        this.filePath = Objects.requireNonNull(filePath);
+        this.recordSeparator = Objects.requireNonNull(recordSeparator);
+        this.chunkSize = chunkSize;
+        this.threadCount = threadCount;
+        this.blockCompressor = blockCompressor;
+    }
+
+    @Override
+    public void accept(final RecordEncoder encoder, final Stream<Record> recordStream) {
+        // Enough chunks in flight to keep all the workers busy while the oldest is written
+        final int maxChunksInFlight = threadCount * 2;
+        final BlockingQueue<Utf8Buffer> freeBuffers = new ArrayBlockingQueue<>((maxChunksInFlight + 1) * 2);
+        final Deque<Future<Utf8Buffer>> chunksInFlight = new ArrayDeque<>(maxChunksInFlight);
+        final ExecutorService executorService = Utils.newDaemonThreadPool(threadCount, "stroom-test-data-writer");
+
+        try (final FileChannel fileChannel = FileChannel.open(
+                filePath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+
+            final Utf8Buffer headerBuffer = new Utf8Buffer();
+            boolean isFirstRow = true;
+            for (final String headerRow : encoder.getHeaderRows()) {
+                if (!isFirstRow) {
+                    headerBuffer.append(recordSeparator);
+                }
+                headerBuffer.append(headerRow);
+                isFirstRow = false;
+            }
+            write(fileChannel, compress(headerBuffer, freeBuffers));
+
+            final Iterator<Record> recordIterator = recordStream.iterator();
+            while (recordIterator.hasNext()) {
+                final List<Record> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && recordIterator.hasNext()) {
+                    chunk.add(recordIterator.next());
+                }
+                final boolean isSeparatorNeeded = !isFirstRow;
+                isFirstRow = false;
+
+                if (chunksInFlight.size() >= maxChunksInFlight) {
+                    writeChunk(fileChannel, chunksInFlight.removeFirst(), freeBuffers);
+                }
+                chunksInFlight.addLast(executorService.submit(() ->
+                        encodeChunk(encoder, chunk, isSeparatorNeeded, freeBuffers)));
+            }
+
+            while (!chunksInFlight.isEmpty()) {
+                writeChunk(fileChannel, chunksInFlight.removeFirst(), freeBuffers);
+            }
+
+            final Utf8Buffer footerBuffer = new Utf8Buffer();
+            for (final String footerRow : encoder.getFooterRows()) {
+                if (!isFirstRow) {
+                    footerBuffer.append(recordSeparator);
+                }
+                footerBuffer.append(footerRow);
+                isFirstRow = false;
+            }
+            write(fileChannel, compress(footerBuffer, freeBuffers));
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing to file "
+                    + filePath.toAbsolutePath().normalize().toString() + ": "
+                    + e.getMessage(), e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private Utf8Buffer encodeChunk(final RecordEncoder encoder,
+                                   final List<Record> chunk,
+                                   final boolean isSeparatorNeeded,
+                                   final BlockingQueue<Utf8Buffer> freeBuffers) throws IOException {
+        final Utf8Buffer buffer = getFreeBuffer(freeBuffers);
+        boolean isFirstRecord = true;
+        for (final Record record : chunk) {
+            if (isSeparatorNeeded || !isFirstRecord) {
+                buffer.append(recordSeparator);
+            }
+            encoder.encodeRecord(record, buffer);
+            isFirstRecord = false;
+        }
+        return compress(buffer, freeBuffers);
+    }
+
+    /**
+     * @return A buffer holding the compressed form of buffer, or buffer itself if there is
+     * no compressor or it is empty.
+     */
+    private Utf8Buffer compress(final Utf8Buffer buffer,
+                                final BlockingQueue<Utf8Buffer> freeBuffers) throws IOException {
+        if (blockCompressor == null || buffer.size() == 0) {
+            return buffer;
+        }
+        final Utf8Buffer compressedBuffer = getFreeBuffer(freeBuffers);
+        blockCompressor.compress(buffer.asByteBuffer(), compressedBuffer.asOutputStream());
+        buffer.reset();
+        freeBuffers.offer(buffer);
+        return compressedBuffer;
+    }
+
+    private static Utf8Buffer getFreeBuffer(final BlockingQueue<Utf8Buffer> freeBuffers) {
+        final Utf8Buffer buffer = freeBuffers.poll();
+        return buffer != null
+                ? buffer
+                : new Utf8Buffer();
+    }
+
+    private void writeChunk(final FileChannel fileChannel,
+                            final Future<Utf8Buffer> chunkFuture,
+                            final BlockingQueue<Utf8Buffer> freeBuffers) throws IOException {
+        final Utf8Buffer buffer;
+        try {
+            buffer = chunkFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted writing to file " + filePath, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error encoding records: " + e.getCause().getMessage(), e.getCause());
+        }
+        write(fileChannel, buffer);
+        buffer.reset();
+        freeBuffers.offer(buffer);
+    }
+
+    private static void write(final FileChannel fileChannel, final Utf8Buffer buffer) throws IOException {
+        final ByteBuffer byteBuffer = buffer.asByteBuffer();
+        while (byteBuffer.hasRemaining()) {
+            fileChannel.write(byteBuffer);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package stroom.testdata;
+
+/**
+ * PCG32 (XSH RR 64/32) by Melissa O'Neill, see https://www.pcg-random.org/
+ */
+class Pcg32RandomSource extends AbstractRandomSource {
+
+    private static final long MULTIPLIER = 6364136223846793005L;
+    private static final long INCREMENT = 1442695040888963407L;
+
+    private long state;
+
+    Pcg32RandomSource(final long seed) {
+        setSeed(seed);
+    }
+
+    @Override
+    public int nextInt() {
+        final long oldState = state;
+        state = (oldState * MULTIPLIER) + INCREMENT;
+        final int xorShifted = (int) (((oldState >>> 18) ^ oldState) >>> 27);
+        final int rotation = (int) (oldState >>> 59);
+        return Integer.rotateRight(xorShifted, rotation);
+    }
+
+    @Override
+    public long nextLong() {
+        return ((long) nextInt() << 32) | (nextInt() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextInt() < 0;
+    }
+
+    @Override
+    public void setSeed(final long seed) {
+        // As pcg32_srandom_r
+        state = 0L;
+        nextInt();
+        state += seed;
+        nextInt();
+    }
+}
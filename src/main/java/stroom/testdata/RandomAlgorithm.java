@@ -0,0 +1,46 @@
+package stroom.testdata;
+
+import java.util.function.LongFunction;
+
+/**
+ * The pseudo random number generator algorithms available for generating data.
+ * See {@link DataGenerator.DefinitionBuilder#withRandomAlgorithm(RandomAlgorithm)}.
+ */
+public enum RandomAlgorithm {
+
+    /**
+     * {@link java.util.Random}. Slowest as every call updates an atomic seed, but produces the
+     * same values for a given seed as earlier versions of this library.
+     */
+    JDK(JdkRandomSource::new),
+
+    /**
+     * SplitMix64, the algorithm used by {@link java.util.SplittableRandom}. Very fast with
+     * 64 bits of state.
+     */
+    SPLIT_MIX_64(SplitMix64RandomSource::new),
+
+    /**
+     * xoroshiro128++. Very fast with 128 bits of state.
+     */
+    XOROSHIRO_128_PLUS_PLUS(Xoroshiro128PlusPlusRandomSource::new),
+
+    /**
+     * PCG32 (XSH RR). Fast with good statistical quality, natively produces 32 bit values.
+     */
+    PCG_32(Pcg32RandomSource::new);
+
+    private final LongFunction<RandomSource> factory;
+
+    RandomAlgorithm(final LongFunction<RandomSource> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param seed The initial seed
+     * @return A new {@link RandomSource} using this algorithm.
+     */
+    public RandomSource create(final long seed) {
+        return factory.apply(seed);
+    }
+}
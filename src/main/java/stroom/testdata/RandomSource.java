@@ -0,0 +1,55 @@
+package stroom.testdata;
+
+import java.util.Random;
+
+/**
+ * A source of random values for use by {@link Field} value functions. Implementations are
+ * not thread safe; each {@link GenerationContext} has its own instance so there is no
+ * contention between threads. See {@link RandomAlgorithm} for the available implementations.
+ */
+public interface RandomSource {
+
+    /**
+     * @return A uniformly distributed int value.
+     */
+    int nextInt();
+
+    /**
+     * @param bound The upper bound (exclusive), must be positive.
+     * @return A uniformly distributed int value between zero (inclusive) and bound (exclusive).
+     */
+    int nextInt(int bound);
+
+    /**
+     * @return A uniformly distributed long value.
+     */
+    long nextLong();
+
+    /**
+     * @param bound The upper bound (exclusive), must be positive.
+     * @return A uniformly distributed long value between zero (inclusive) and bound (exclusive).
+     */
+    long nextLong(long bound);
+
+    /**
+     * @return A uniformly distributed double value between 0.0 (inclusive) and 1.0 (exclusive).
+     */
+    double nextDouble();
+
+    /**
+     * @return A uniformly distributed boolean value.
+     */
+    boolean nextBoolean();
+
+    /**
+     * Resets the state of this source so that it produces the same sequence for the same seed.
+     * @param seed The seed
+     * @throws UnsupportedOperationException If this source cannot be seeded.
+     */
+    void setSeed(long seed);
+
+    /**
+     * @return A {@link Random} backed by this source, for use with APIs that need one, e.g. Faker.
+     */
+    Random asRandom();
+}
@@ -0,0 +1,180 @@
+package stroom.testdata;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces a run of {@link DataGenerator.DefinitionBuilder#generate()} to a target number of rows
+ * or UTF-8 bytes per second, see {@link DataGenerator.DefinitionBuilder#withRateLimit(RateLimit)}.
+ * <p>
+ * Rows are let through in batches, one time slice's worth at a time, with the time each batch
+ * is due worked out from the start of the run rather than from the previous batch, so any
+ * lateness is caught up and does not accumulate. The schedule is shared, so when rows are
+ * consumed on several threads, e.g. with a {@link ShardedOutputConsumer}, the target is for
+ * all of them combined.
+ * <p>
+ * Once the run has finished, or while it is in progress, the achieved rate and how far it
+ * drifted from the target can be read from the instance.
+ */
+public final class RateLimit {
+
+    private static final Duration DEFAULT_SLICE = Duration.ofMillis(10);
+
+    private final Unit unit;
+    private final double targetPerSecond;
+    private final double nanosPerPermit;
+    private final long permitsPerSlice;
+
+    private final AtomicLong permitsTaken = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private volatile long startNanos = 0;
+    private volatile long elapsedNanos = -1;
+
+    private RateLimit(final Unit unit, final double targetPerSecond, final Duration slice) {
+        Utils.checkArgument(targetPerSecond > 0, "targetPerSecond must be > 0");
+        Utils.checkArgument(!slice.isNegative() && !slice.isZero(), "slice must be > 0");
+        this.unit = unit;
+        this.targetPerSecond = targetPerSecond;
+        this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / targetPerSecond;
+        this.permitsPerSlice = Math.max(1, (long) (slice.toNanos() / nanosPerPermit));
+    }
+
+    /**
+     * @param rowsPerSecond The number of records to generate per second, excluding any header
+     *                      or footer rows.
+     */
+    public static RateLimit rowsPerSecond(final double rowsPerSecond) {
+        return new RateLimit(Unit.ROWS, rowsPerSecond, DEFAULT_SLICE);
+    }
+
+    /**
+     * @param bytesPerSecond The number of UTF-8 bytes to generate per second, excluding any
+     *                       record separators added by the consumer.
+     */
+    public static RateLimit bytesPerSecond(final double bytesPerSecond) {
+        return new RateLimit(Unit.BYTES, bytesPerSecond, DEFAULT_SLICE);
+    }
+
+    /**
+     * @return A copy of this limit that lets rows through in batches covering slice, which
+     * defaults to 10ms. Shorter slices give smoother output but more time spent waiting.
+     */
+    public RateLimit withSlice(final Duration slice) {
+        return new RateLimit(unit, targetPerSecond, Objects.requireNonNull(slice));
+    }
+
+    Unit getUnit() {
+        return unit;
+    }
+
+    /**
+     * Resets the schedule for a new run.
+     */
+    void start() {
+        permitsTaken.set(0);
+        maxLagNanos.set(0);
+        elapsedNanos = -1;
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes permits, i.e. rows or bytes, waiting if they are ahead of the schedule. Only waits
+     * when the permits start a new slice so rows are let through in batches.
+     */
+    void acquire(final long permits) {
+        if (permits <= 0) {
+            return;
+        }
+        final long taken = permitsTaken.addAndGet(permits);
+        final long previouslyTaken = taken - permits;
+        final long sliceNo = (taken - 1) / permitsPerSlice;
+        if (previouslyTaken > 0 && (previouslyTaken - 1) / permitsPerSlice == sliceNo) {
+            return;
+        }
+        waitUntil(startNanos + (long) (sliceNo * permitsPerSlice * nanosPerPermit));
+    }
+
+    /**
+     * Waits until the last slice is over, so the run takes as long as the target rate says it
+     * should, then records the time taken.
+     */
+    void complete() {
+        waitUntil(startNanos + (long) (permitsTaken.get() * nanosPerPermit));
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    private void waitUntil(final long dueNanos) {
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos < 0) {
+            maxLagNanos.accumulateAndGet(-waitNanos, Math::max);
+        }
+        while (waitNanos > 0) {
+            // May wake early so check the time again
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("Interrupted waiting for rate limit");
+            }
+            waitNanos = dueNanos - System.nanoTime();
+        }
+    }
+
+    public double getTargetPerSecond() {
+        return targetPerSecond;
+    }
+
+    /**
+     * @return The achieved rows or bytes per second, over the whole run once it has finished.
+     */
+    public double getActualPerSecond() {
+        final long elapsedNanos = getElapsedNanos();
+        return elapsedNanos <= 0
+                ? 0
+                : permitsTaken.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return How far the achieved rate was from the target as a fraction of the target, e.g.
+     * -0.02 if it was 2% slow, as it will be if the generator or consumer cannot keep up.
+     */
+    public double getDrift() {
+        return (getActualPerSecond() - targetPerSecond) / targetPerSecond;
+    }
+
+    /**
+     * @return The furthest a batch fell behind its due time.
+     */
+    public Duration getMaxLag() {
+        return Duration.ofNanos(maxLagNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return Utils.message("target {}/sec: {}, actual: {}, drift: {}%, max lag: {}",
+                unit.name().toLowerCase(),
+                Math.round(targetPerSecond),
+                Math.round(getActualPerSecond()),
+                Math.round(getDrift() * 10_000) / 100.0,
+                getMaxLag());
+    }
+
+    private long getElapsedNanos() {
+        final long elapsedNanos = this.elapsedNanos;
+        if (elapsedNanos >= 0) {
+            return elapsedNanos;
+        } else if (startNanos == 0) {
+            return 0;
+        } else {
+            return System.nanoTime() - startNanos;
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    enum Unit {
+        ROWS,
+        BYTES
+    }
+}
@@ -1,22 +1,200 @@
 package stroom.testdata;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * The values for one row of generated data. Values are held in slots according to the
+ * {@link Field} that produced them, so numbers and timestamps are held as primitives and
+ * only turned into strings if {@link #getValue(int)} or {@link #getValues()} is called.
+ * Writers should prefer {@link #appendValue(int, StringBuilder)} or the typed getters to
+ * avoid creating strings for each value.
+ */
 public class Record {
-    //TODO may be better to model this as a Map<Field, String>
     final List<Field> fieldDefinitions;
-    final List<String> values;
+    private final long rowNumber;
+    private final String[] stringValues;
+    private final long[] longValues;
+    private final double[] doubleValues;
 
     public Record(List<Field> fieldDefinitions, List<String> values) {
+        Objects.requireNonNull(fieldDefinitions);
+        Objects.requireNonNull(values);
+        Utils.checkArgument(fieldDefinitions.size() == values.size(),
+                "fieldDefinitions and values must be the same size");
         this.fieldDefinitions = fieldDefinitions;
-        this.values = values;
+        this.rowNumber = 0;
+        this.stringValues = values.toArray(new String[0]);
+        this.longValues = null;
+        this.doubleValues = null;
+    }
+
+    /**
+     * @param longValues   Must be non-null if any field holds long values
+     * @param doubleValues Must be non-null if any field holds double values
+     */
+    Record(final List<Field> fieldDefinitions,
+           final long rowNumber,
+           final String[] stringValues,
+           final long[] longValues,
+           final double[] doubleValues) {
+        this.fieldDefinitions = fieldDefinitions;
+        this.rowNumber = rowNumber;
+        this.stringValues = stringValues;
+        this.longValues = longValues;
+        this.doubleValues = doubleValues;
     }
 
     public List<Field> getFieldDefinitions() {
         return fieldDefinitions;
     }
 
+    /**
+     * @return All the values as strings. Any values not held as strings will be rendered
+     * as strings.
+     */
     public List<String> getValues() {
-        return values;
+        for (int i = 0; i < stringValues.length; i++) {
+            getValue(i);
+        }
+        return Collections.unmodifiableList(Arrays.asList(stringValues));
+    }
+
+    /**
+     * @return The number of the row in the run, starting from 1, or 0 if the record was not
+     * generated by a run.
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+
+    /**
+     * @return The number of values in the record
+     */
+    public int size() {
+        return stringValues.length;
+    }
+
+    /**
+     * @return The type of the value at index.
+     */
+    public FieldType getType(final int index) {
+        return fieldDefinitions.get(index).getType();
+    }
+
+    /**
+     * @return The value at index as a string, rendering it if it is not held as one.
+     */
+    public String getValue(final int index) {
+        String value = stringValues[index];
+        if (value == null) {
+            final Field field = fieldDefinitions.get(index);
+            switch (field.getValueSlot()) {
+                case LONG:
+                    value = field.renderLong(longValues[index]);
+                    break;
+                case DOUBLE:
+                    value = Double.toString(doubleValues[index]);
+                    break;
+                default:
+                    // A null string value
+                    return null;
+            }
+            stringValues[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * @return True if the value at index is held as a long, see {@link #getLong(int)}.
+     */
+    public boolean isLong(final int index) {
+        return longValues != null
+                && fieldDefinitions.get(index).getValueSlot() == Field.ValueSlot.LONG;
+    }
+
+    /**
+     * @return True if the value at index is held as a double, see {@link #getDouble(int)}.
+     */
+    public boolean isDouble(final int index) {
+        return doubleValues != null
+                && fieldDefinitions.get(index).getValueSlot() == Field.ValueSlot.DOUBLE;
+    }
+
+    /**
+     * @return The value at index as held in its long slot, e.g. epoch millis for
+     * a {@link FieldType#EPOCH_MILLIS} value.
+     * @throws IllegalStateException if the value is not held as a long.
+     */
+    public long getLong(final int index) {
+        if (!isLong(index)) {
+            throw new IllegalStateException(Utils.message("Value {} is not held as a long", index));
+        }
+        return longValues[index];
+    }
+
+    /**
+     * @return The value at index as held in its double slot.
+     * @throws IllegalStateException if the value is not held as a double.
+     */
+    public double getDouble(final int index) {
+        if (!isDouble(index)) {
+            throw new IllegalStateException(Utils.message("Value {} is not held as a double", index));
+        }
+        return doubleValues[index];
+    }
+
+    /**
+     * Appends the text form of the value at index to stringBuilder without creating
+     * a string for values held as primitives. Null values append nothing.
+     */
+    public void appendValue(final int index, final StringBuilder stringBuilder) {
+        final String value = stringValues[index];
+        if (value != null) {
+            stringBuilder.append(value);
+        } else {
+            final Field field = fieldDefinitions.get(index);
+            switch (field.getValueSlot()) {
+                case LONG:
+                    field.renderLong(longValues[index], stringBuilder);
+                    break;
+                case DOUBLE:
+                    stringBuilder.append(doubleValues[index]);
+                    break;
+                default:
+                    // null value
+            }
+        }
+    }
+
+    /**
+     * Appends the UTF-8 encoded text form of the value at index to buffer without creating
+     * a string for values held as primitives. Null values append nothing.
+     */
+    public void appendValue(final int index, final Utf8Buffer buffer) {
+        final String value = stringValues[index];
+        if (value != null) {
+            buffer.append(value);
+        } else {
+            final Field field = fieldDefinitions.get(index);
+            switch (field.getValueSlot()) {
+                case LONG:
+                    if (field.isDecimal()) {
+                        buffer.append(longValues[index]);
+                    } else {
+                        final StringBuilder stringBuilder = buffer.getScratchBuilder();
+                        field.renderLong(longValues[index], stringBuilder);
+                        buffer.append(stringBuilder);
+                    }
+                    break;
+                case DOUBLE:
+                    buffer.append(buffer.getScratchBuilder().append(doubleValues[index]));
+                    break;
+                default:
+                    // null value
+            }
+        }
     }
 }
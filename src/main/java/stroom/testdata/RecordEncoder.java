@@ -0,0 +1,39 @@
+package stroom.testdata;
+
+import java.util.List;
+
+/**
+ * Encodes the records for a fixed set of {@link Field}s as UTF-8 bytes. An encoder is created
+ * once per run by {@link EncodingDataWriter#createEncoder(List)} so it can do any per field
+ * work up front. {@link #encodeRecord(Record, Utf8Buffer)} may be called concurrently from
+ * multiple threads, each with its own buffer.
+ */
+public interface RecordEncoder {
+
+    /**
+     * @return The rows to output before the first record, e.g. a CSV header row. Each row is
+     * separated from the next by the consumer's record separator.
+     */
+    List<String> getHeaderRows();
+
+    /**
+     * Appends the encoded form of record to buffer, without any record separator.
+     */
+    void encodeRecord(Record record, Utf8Buffer buffer);
+
+    /**
+     * As {@link #encodeRecord(Record, Utf8Buffer)} but for consumers that split the records over
+     * several files or entries, each with its own header and footer rows. isFirstRecord is true
+     * for the first record after the header rows of each, so encoders whose output depends on
+     * the position of the record, e.g. a JSON array, keep each file valid. Otherwise the position
+     * is taken from {@link Record#getRowNumber()}.
+     */
+    default void encodeRecord(final Record record, final boolean isFirstRecord, final Utf8Buffer buffer) {
+        encodeRecord(record, buffer);
+    }
+
+    /**
+     * @return The rows to output after the last record, e.g. a closing XML element.
+     */
+    List<String> getFooterRows();
+}
@@ -0,0 +1,127 @@
+package stroom.testdata;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Does the timing and progress counting for a single run that has a {@link GenerationListener}.
+ * Runs without a listener have no monitor, so pay nothing for it.
+ */
+class RunMonitor {
+
+    static final long PROGRESS_INTERVAL = 10_000;
+
+    private final GenerationListener listener;
+    private final long rowCount;
+    private final int fieldSampleInterval;
+    private final LongAdder rowsGenerated = new LongAdder();
+    private long startNanos;
+
+    RunMonitor(final GenerationListener listener, final long rowCount) {
+        this.listener = Objects.requireNonNull(listener);
+        this.rowCount = rowCount;
+        this.fieldSampleInterval = Math.max(1, listener.getFieldSampleInterval());
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+        listener.onStart(rowCount);
+    }
+
+    boolean isSampledRow(final long rowNumber) {
+        return rowNumber % fieldSampleInterval == 0;
+    }
+
+    void fieldSampled(final Field field, final long nanos) {
+        listener.onFieldSampled(field, nanos);
+    }
+
+    /**
+     * Rows may be generated in any order when multi threaded so progress is counted in
+     * blocks as each row that ends a block is generated.
+     */
+    void rowGenerated(final long rowNumber) {
+        if (rowNumber % PROGRESS_INTERVAL == 0) {
+            rowsGenerated.add(PROGRESS_INTERVAL);
+            listener.onProgress(rowsGenerated.sum(), rowCount);
+        }
+    }
+
+    /**
+     * @return An encoder that reports the time taken and bytes produced for each record.
+     */
+    RecordEncoder timeEncoder(final RecordEncoder encoder) {
+        return new RecordEncoder() {
+            @Override
+            public List<String> getHeaderRows() {
+                return encoder.getHeaderRows();
+            }
+
+            @Override
+            public void encodeRecord(final Record record, final Utf8Buffer buffer) {
+                final int startSize = buffer.size();
+                final long startNanos = System.nanoTime();
+                encoder.encodeRecord(record, buffer);
+                listener.onRecordEncoded(System.nanoTime() - startNanos, buffer.size() - startSize);
+            }
+
+            @Override
+            public void encodeRecord(final Record record, final boolean isFirstRecord, final Utf8Buffer buffer) {
+                final int startSize = buffer.size();
+                final long startNanos = System.nanoTime();
+                encoder.encodeRecord(record, isFirstRecord, buffer);
+                listener.onRecordEncoded(System.nanoTime() - startNanos, buffer.size() - startSize);
+            }
+
+            @Override
+            public List<String> getFooterRows() {
+                return encoder.getFooterRows();
+            }
+        };
+    }
+
+    /**
+     * Passes stream to consumer, timing how long the consumer takes excluding the time spent
+     * waiting for each item of the stream.
+     */
+    <T> void timeConsumer(final Stream<T> stream, final Consumer<Stream<T>> consumer) {
+        final long[] upstreamNanos = new long[1];
+        final Iterator<T> iterator = stream.iterator();
+        final Iterator<T> timedIterator = new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                final long startNanos = System.nanoTime();
+                final boolean hasNext = iterator.hasNext();
+                upstreamNanos[0] += System.nanoTime() - startNanos;
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                final long startNanos = System.nanoTime();
+                final T next = iterator.next();
+                upstreamNanos[0] += System.nanoTime() - startNanos;
+                return next;
+            }
+        };
+        final Stream<T> timedStream = StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(timedIterator, Spliterator.ORDERED),
+                false)
+                .onClose(stream::close);
+
+        final long startNanos = System.nanoTime();
+        consumer.accept(timedStream);
+        listener.onConsumerTime(System.nanoTime() - startNanos - upstreamNanos[0]);
+    }
+
+    void complete() {
+        listener.onComplete(rowCount, System.nanoTime() - startNanos);
+    }
+}
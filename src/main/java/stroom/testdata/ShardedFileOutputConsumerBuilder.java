@@ -0,0 +1,255 @@
+package stroom.testdata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Builds a {@link ShardedOutputConsumer} that writes each shard to its own set of files, e.g.
+ * <pre>
+ * ShardedFileOutputConsumerBuilder.builder()
+ *     .outputDirectory(dir)
+ *     .fileNamePattern("data_${shard}_${part}.csv")
+ *     .shardCount(8)
+ *     .rowsPerFile(100_000)
+ *     .build()
+ * </pre>
+ * Every file gets the header and footer rows of the data writer so each one is complete in its
+ * own right. Existing files with the same name are overwritten.
+ */
+public class ShardedFileOutputConsumerBuilder {
+
+    /**
+     * Replaced in the file name pattern with the zero based shard number.
+     */
+    public static final String SHARD_VARIABLE = "${shard}";
+
+    /**
+     * Replaced in the file name pattern with the zero based number of the file within the shard.
+     */
+    public static final String PART_VARIABLE = "${part}";
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private Path outputDirectory;
+    private String fileNamePattern;
+    private int shardCount = Runtime.getRuntime().availableProcessors();
+    private long rowsPerFile = Long.MAX_VALUE;
+    private long bytesPerFile = Long.MAX_VALUE;
+    private String recordSeparator = "\n";
+
+    public static ShardedFileOutputConsumerBuilder builder() {
+        return new ShardedFileOutputConsumerBuilder();
+    }
+
+    /**
+     * The directory to write the files to, it will be created if it does not exist.
+     */
+    public ShardedFileOutputConsumerBuilder outputDirectory(final Path outputDirectory) {
+        this.outputDirectory = Objects.requireNonNull(outputDirectory);
+        return this;
+    }
+
+    /**
+     * The name of each file, containing {@link #SHARD_VARIABLE} if there is more than one shard
+     * and {@link #PART_VARIABLE} if files roll over.
+     */
+    public ShardedFileOutputConsumerBuilder fileNamePattern(final String fileNamePattern) {
+        this.fileNamePattern = Objects.requireNonNull(fileNamePattern);
+        return this;
+    }
+
+    /**
+     * The number of shards, each written by its own thread. Defaults to the number of processors.
+     */
+    public ShardedFileOutputConsumerBuilder shardCount(final int shardCount) {
+        Utils.checkArgument(shardCount > 0, "shardCount must be > 0");
+        this.shardCount = shardCount;
+        return this;
+    }
+
+    /**
+     * Start a new file once a file holds this many records.
+     */
+    public ShardedFileOutputConsumerBuilder rowsPerFile(final long rowsPerFile) {
+        Utils.checkArgument(rowsPerFile > 0, "rowsPerFile must be > 0");
+        this.rowsPerFile = rowsPerFile;
+        return this;
+    }
+
+    /**
+     * Start a new file once a file holds at least this many bytes of records. A file is only
+     * rolled over at the end of a record so may be slightly larger.
+     */
+    public ShardedFileOutputConsumerBuilder bytesPerFile(final long bytesPerFile) {
+        Utils.checkArgument(bytesPerFile > 0, "bytesPerFile must be > 0");
+        this.bytesPerFile = bytesPerFile;
+        return this;
+    }
+
+    public ShardedFileOutputConsumerBuilder recordSeparator(final String recordSeparator) {
+        this.recordSeparator = Objects.requireNonNull(recordSeparator);
+        return this;
+    }
+
+    public ShardedOutputConsumer build() {
+        Objects.requireNonNull(outputDirectory, "outputDirectory must be set");
+        Objects.requireNonNull(fileNamePattern, "fileNamePattern must be set");
+        Utils.checkArgument(shardCount == 1 || fileNamePattern.contains(SHARD_VARIABLE),
+                "fileNamePattern must contain {} when there is more than one shard", SHARD_VARIABLE);
+        Utils.checkArgument(
+                (rowsPerFile == Long.MAX_VALUE && bytesPerFile == Long.MAX_VALUE)
+                        || fileNamePattern.contains(PART_VARIABLE),
+                "fileNamePattern must contain {} when rowsPerFile or bytesPerFile are set", PART_VARIABLE);
+
+        try {
+            Files.createDirectories(outputDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException(Utils.message("Error creating directory {}: {}",
+                    outputDirectory.toAbsolutePath().normalize(), e.getMessage()), e);
+        }
+
+        final Path outputDirectory = this.outputDirectory;
+        final String fileNamePattern = this.fileNamePattern;
+        final int shardCount = this.shardCount;
+        final long rowsPerFile = this.rowsPerFile;
+        final long bytesPerFile = this.bytesPerFile;
+        final String recordSeparator = this.recordSeparator;
+
+        return new ShardedOutputConsumer() {
+            @Override
+            public int getShardCount() {
+                return shardCount;
+            }
+
+            @Override
+            public void acceptShard(final RecordEncoder encoder,
+                                    final int shardNo,
+                                    final Stream<Record> recordStream) {
+                final String shardFileNamePattern = fileNamePattern.replace(
+                        SHARD_VARIABLE, Integer.toString(shardNo));
+                new ShardWriter(outputDirectory, shardFileNamePattern, rowsPerFile, bytesPerFile, recordSeparator)
+                        .write(encoder, recordStream);
+            }
+        };
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Writes the records of one shard, rolling over to a new file as required.
+     */
+    private static class ShardWriter {
+
+        private final Path outputDirectory;
+        private final String fileNamePattern;
+        private final long rowsPerFile;
+        private final long bytesPerFile;
+        private final String recordSeparator;
+        private final Utf8Buffer buffer = new Utf8Buffer(WRITE_BUFFER_SIZE * 2);
+
+        private FileChannel fileChannel = null;
+        private Path filePath = null;
+        private int partNo = 0;
+        private long rowsInFile = 0;
+        private long bytesInFile = 0;
+        private boolean isFirstRowInFile = true;
+
+        private ShardWriter(final Path outputDirectory,
+                            final String fileNamePattern,
+                            final long rowsPerFile,
+                            final long bytesPerFile,
+                            final String recordSeparator) {
+            this.outputDirectory = outputDirectory;
+            this.fileNamePattern = fileNamePattern;
+            this.rowsPerFile = rowsPerFile;
+            this.bytesPerFile = bytesPerFile;
+            this.recordSeparator = recordSeparator;
+        }
+
+        private void write(final RecordEncoder encoder, final Stream<Record> recordStream) {
+            try {
+                final Iterator<Record> recordIterator = recordStream.iterator();
+                while (recordIterator.hasNext()) {
+                    if (fileChannel == null) {
+                        openNextFile(encoder.getHeaderRows());
+                    }
+                    appendSeparatorIfNeeded();
+                    encoder.encodeRecord(recordIterator.next(), rowsInFile == 0, buffer);
+                    rowsInFile++;
+
+                    if (buffer.size() >= WRITE_BUFFER_SIZE) {
+                        flush();
+                    }
+                    if (rowsInFile >= rowsPerFile || bytesInFile + buffer.size() >= bytesPerFile) {
+                        closeFile(encoder.getFooterRows());
+                    }
+                }
+                if (fileChannel != null) {
+                    closeFile(encoder.getFooterRows());
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to file "
+                        + (filePath != null ? filePath.toAbsolutePath().normalize().toString() : "")
+                        + ": " + e.getMessage(), e);
+            } finally {
+                if (fileChannel != null) {
+                    try {
+                        fileChannel.close();
+                    } catch (IOException e) {
+                        // Already failing so ignore
+                    }
+                }
+            }
+        }
+
+        private void openNextFile(final List<String> headerRows) throws IOException {
+            filePath = outputDirectory.resolve(fileNamePattern.replace(PART_VARIABLE, Integer.toString(partNo++)));
+            fileChannel = FileChannel.open(
+                    filePath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            rowsInFile = 0;
+            bytesInFile = 0;
+            isFirstRowInFile = true;
+            for (final String headerRow : headerRows) {
+                appendSeparatorIfNeeded();
+                buffer.append(headerRow);
+            }
+        }
+
+        private void closeFile(final List<String> footerRows) throws IOException {
+            for (final String footerRow : footerRows) {
+                appendSeparatorIfNeeded();
+                buffer.append(footerRow);
+            }
+            flush();
+            fileChannel.close();
+            fileChannel = null;
+        }
+
+        private void appendSeparatorIfNeeded() {
+            if (!isFirstRowInFile) {
+                buffer.append(recordSeparator);
+            }
+            isFirstRowInFile = false;
+        }
+
+        private void flush() throws IOException {
+            final ByteBuffer byteBuffer = buffer.asByteBuffer();
+            while (byteBuffer.hasRemaining()) {
+                fileChannel.write(byteBuffer);
+            }
+            bytesInFile += buffer.size();
+            buffer.reset();
+        }
+    }
+}
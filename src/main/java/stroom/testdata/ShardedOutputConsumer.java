@@ -0,0 +1,25 @@
+package stroom.testdata;
+
+import java.util.stream.Stream;
+
+/**
+ * Consumes generated records split into shards, each shard being a contiguous range of rows
+ * that is generated and consumed on its own thread, e.g. to write a set of files per shard
+ * without any lock shared between shards. See {@link ShardedFileOutputConsumerBuilder}.
+ */
+public interface ShardedOutputConsumer {
+
+    /**
+     * @return The number of shards to split the rows into. There will be fewer shards if
+     * there are fewer rows than this.
+     */
+    int getShardCount();
+
+    /**
+     * Called concurrently, once for each shard.
+     * @param encoder      The encoder for the fields of the records, shared by all shards.
+     * @param shardNo      The zero based number of the shard.
+     * @param recordStream The records of the shard in row order.
+     */
+    void acceptShard(RecordEncoder encoder, int shardNo, Stream<Record> recordStream);
+}
@@ -0,0 +1,27 @@
+package stroom.testdata;
+
+/**
+ * SplitMix64, as used by {@link java.util.SplittableRandom}, but able to be re-seeded
+ * without creating a new object.
+ */
+class SplitMix64RandomSource extends AbstractRandomSource {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    SplitMix64RandomSource(final long seed) {
+        setSeed(seed);
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return splitMix64(state);
+    }
+
+    @Override
+    public void setSeed(final long seed) {
+        this.state = seed;
+    }
+}
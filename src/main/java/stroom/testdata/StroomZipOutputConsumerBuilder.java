@@ -0,0 +1,448 @@
+package stroom.testdata;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds a {@link ShardedOutputConsumer} that writes the records as Stroom zip aggregates, as
+ * produced by stroom-proxy, e.g.
+ * <pre>
+ * StroomZipOutputConsumerBuilder.builder()
+ *     .outputDirectory(dir)
+ *     .fileNamePattern("aggregate_${shard}_${part}.zip")
+ *     .feed("MY_FEED-EVENTS")
+ *     .rowsPerStream(10_000)
+ *     .streamsPerZip(100)
+ *     .build()
+ * </pre>
+ * Each zip holds a number of streams, each stream being a set of entries with the same base name:
+ * <ul>
+ *     <li>0000000001.dat - The records, with the header and footer rows of the data writer.</li>
+ *     <li>0000000001.meta - The meta attributes of the stream as key:value lines.</li>
+ *     <li>0000000001.ctx - The context of the stream, if a context supplier is set.</li>
+ * </ul>
+ * Entries are streamed into the zip as the records are generated, so the .meta entry is written
+ * after the .dat entry and can include its size. Besides any attributes that are set, the meta
+ * always has the generated GUID, ReceivedTime and StreamSize attributes.
+ * Existing files with the same name are overwritten.
+ */
+public class StroomZipOutputConsumerBuilder {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int ENTRY_NAME_DIGITS = 10;
+
+    private Path outputDirectory;
+    private String fileNamePattern;
+    private int shardCount = Runtime.getRuntime().availableProcessors();
+    private long rowsPerStream = 10_000;
+    private long streamsPerZip = Long.MAX_VALUE;
+    private long bytesPerZip = Long.MAX_VALUE;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private String recordSeparator = "\n";
+    private final Map<String, Supplier<String>> metaAttributes = new LinkedHashMap<>();
+    private Supplier<String> contextSupplier = null;
+
+    public static StroomZipOutputConsumerBuilder builder() {
+        return new StroomZipOutputConsumerBuilder();
+    }
+
+    /**
+     * The directory to write the zip files to, it will be created if it does not exist.
+     */
+    public StroomZipOutputConsumerBuilder outputDirectory(final Path outputDirectory) {
+        this.outputDirectory = Objects.requireNonNull(outputDirectory);
+        return this;
+    }
+
+    /**
+     * The name of each zip file, containing {@link ShardedFileOutputConsumerBuilder#SHARD_VARIABLE}
+     * if there is more than one shard and {@link ShardedFileOutputConsumerBuilder#PART_VARIABLE}
+     * if zips roll over.
+     */
+    public StroomZipOutputConsumerBuilder fileNamePattern(final String fileNamePattern) {
+        this.fileNamePattern = Objects.requireNonNull(fileNamePattern);
+        return this;
+    }
+
+    /**
+     * The number of shards, each writing its own zips on its own thread. Defaults to the number
+     * of processors.
+     */
+    public StroomZipOutputConsumerBuilder shardCount(final int shardCount) {
+        Utils.checkArgument(shardCount > 0, "shardCount must be > 0");
+        this.shardCount = shardCount;
+        return this;
+    }
+
+    /**
+     * Start a new stream once a stream holds this many records. Defaults to 10,000.
+     */
+    public StroomZipOutputConsumerBuilder rowsPerStream(final long rowsPerStream) {
+        Utils.checkArgument(rowsPerStream > 0, "rowsPerStream must be > 0");
+        this.rowsPerStream = rowsPerStream;
+        return this;
+    }
+
+    /**
+     * Start a new zip once a zip holds this many streams.
+     */
+    public StroomZipOutputConsumerBuilder streamsPerZip(final long streamsPerZip) {
+        Utils.checkArgument(streamsPerZip > 0, "streamsPerZip must be > 0");
+        this.streamsPerZip = streamsPerZip;
+        return this;
+    }
+
+    /**
+     * Start a new zip once at least this many compressed bytes have been written to a zip.
+     * A zip is only rolled over at the end of a stream so may be larger.
+     */
+    public StroomZipOutputConsumerBuilder bytesPerZip(final long bytesPerZip) {
+        Utils.checkArgument(bytesPerZip > 0, "bytesPerZip must be > 0");
+        this.bytesPerZip = bytesPerZip;
+        return this;
+    }
+
+    /**
+     * The {@link Deflater} compression level of the entries, 0 (none) to 9 (best).
+     */
+    public StroomZipOutputConsumerBuilder compressionLevel(final int compressionLevel) {
+        Utils.checkArgument(compressionLevel == Deflater.DEFAULT_COMPRESSION
+                        || (compressionLevel >= Deflater.NO_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION),
+                "compressionLevel must be between {} and {}", Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION);
+        this.compressionLevel = compressionLevel;
+        return this;
+    }
+
+    public StroomZipOutputConsumerBuilder recordSeparator(final String recordSeparator) {
+        this.recordSeparator = Objects.requireNonNull(recordSeparator);
+        return this;
+    }
+
+    /**
+     * Sets the Feed meta attribute of every stream.
+     */
+    public StroomZipOutputConsumerBuilder feed(final String feed) {
+        return metaAttribute("Feed", feed);
+    }
+
+    /**
+     * Sets a meta attribute with the same value for every stream.
+     */
+    public StroomZipOutputConsumerBuilder metaAttribute(final String key, final String value) {
+        Objects.requireNonNull(value);
+        return metaAttribute(key, () -> value);
+    }
+
+    /**
+     * Sets a meta attribute whose value is generated for each stream, e.g. a random RemoteHost.
+     * The supplier is called from each shard's thread so must be thread safe.
+     */
+    public StroomZipOutputConsumerBuilder metaAttribute(final String key, final Supplier<String> valueSupplier) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(valueSupplier);
+        Utils.checkArgument(key.indexOf(':') == -1 && key.indexOf('\n') == -1,
+                "key '{}' must not contain ':' or a line break", key);
+        this.metaAttributes.put(key, valueSupplier);
+        return this;
+    }
+
+    /**
+     * Adds a .ctx entry to each stream holding the supplied context, e.g. an XML document
+     * describing the host that produced the data. The supplier is called from each shard's
+     * thread so must be thread safe.
+     */
+    public StroomZipOutputConsumerBuilder context(final Supplier<String> contextSupplier) {
+        this.contextSupplier = Objects.requireNonNull(contextSupplier);
+        return this;
+    }
+
+    public ShardedOutputConsumer build() {
+        Objects.requireNonNull(outputDirectory, "outputDirectory must be set");
+        Objects.requireNonNull(fileNamePattern, "fileNamePattern must be set");
+        Utils.checkArgument(shardCount == 1 || fileNamePattern.contains(ShardedFileOutputConsumerBuilder.SHARD_VARIABLE),
+                "fileNamePattern must contain {} when there is more than one shard",
+                ShardedFileOutputConsumerBuilder.SHARD_VARIABLE);
+        Utils.checkArgument(
+                (streamsPerZip == Long.MAX_VALUE && bytesPerZip == Long.MAX_VALUE)
+                        || fileNamePattern.contains(ShardedFileOutputConsumerBuilder.PART_VARIABLE),
+                "fileNamePattern must contain {} when streamsPerZip or bytesPerZip are set",
+                ShardedFileOutputConsumerBuilder.PART_VARIABLE);
+
+        try {
+            Files.createDirectories(outputDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException(Utils.message("Error creating directory {}: {}",
+                    outputDirectory.toAbsolutePath().normalize(), e.getMessage()), e);
+        }
+
+        final Settings settings = new Settings(this);
+        final int shardCount = this.shardCount;
+
+        return new ShardedOutputConsumer() {
+            @Override
+            public int getShardCount() {
+                return shardCount;
+            }
+
+            @Override
+            public void acceptShard(final RecordEncoder encoder,
+                                    final int shardNo,
+                                    final Stream<Record> recordStream) {
+                new ZipWriter(settings, shardNo).write(encoder, recordStream);
+            }
+        };
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * An immutable copy of the builder's settings, so the builder can be reused.
+     */
+    private static final class Settings {
+        private final Path outputDirectory;
+        private final String fileNamePattern;
+        private final long rowsPerStream;
+        private final long streamsPerZip;
+        private final long bytesPerZip;
+        private final int compressionLevel;
+        private final String recordSeparator;
+        private final Map<String, Supplier<String>> metaAttributes;
+        private final Supplier<String> contextSupplier;
+
+        private Settings(final StroomZipOutputConsumerBuilder builder) {
+            this.outputDirectory = builder.outputDirectory;
+            this.fileNamePattern = builder.fileNamePattern;
+            this.rowsPerStream = builder.rowsPerStream;
+            this.streamsPerZip = builder.streamsPerZip;
+            this.bytesPerZip = builder.bytesPerZip;
+            this.compressionLevel = builder.compressionLevel;
+            this.recordSeparator = builder.recordSeparator;
+            this.metaAttributes = new LinkedHashMap<>(builder.metaAttributes);
+            this.contextSupplier = builder.contextSupplier;
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Writes the records of one shard, rolling over to a new stream and zip as required.
+     */
+    private static class ZipWriter {
+
+        private final Settings settings;
+        private final String fileNamePattern;
+        private final Utf8Buffer buffer = new Utf8Buffer(WRITE_BUFFER_SIZE * 2);
+        private final StringBuilder entryNameBuilder = new StringBuilder();
+        private final TimestampFormat receivedTimeFormat = TimestampFormat.isoMillis();
+
+        private ZipOutputStream zipOutputStream = null;
+        private CountingOutputStream countingOutputStream = null;
+        private Path filePath = null;
+        private int partNo = 0;
+        private long streamsInZip = 0;
+
+        private boolean isStreamOpen = false;
+        private long streamNo = 0;
+        private long rowsInStream = 0;
+        private long bytesInStream = 0;
+        private boolean isFirstRowInStream = true;
+
+        private ZipWriter(final Settings settings, final int shardNo) {
+            this.settings = settings;
+            this.fileNamePattern = settings.fileNamePattern.replace(
+                    ShardedFileOutputConsumerBuilder.SHARD_VARIABLE, Integer.toString(shardNo));
+        }
+
+        private void write(final RecordEncoder encoder, final Stream<Record> recordStream) {
+            try {
+                final Iterator<Record> recordIterator = recordStream.iterator();
+                while (recordIterator.hasNext()) {
+                    if (!isStreamOpen) {
+                        openStream(encoder.getHeaderRows());
+                    }
+                    appendSeparatorIfNeeded();
+                    encoder.encodeRecord(recordIterator.next(), rowsInStream == 0, buffer);
+                    rowsInStream++;
+
+                    if (buffer.size() >= WRITE_BUFFER_SIZE) {
+                        flush();
+                    }
+                    if (rowsInStream >= settings.rowsPerStream) {
+                        closeStream(encoder.getFooterRows());
+                    }
+                }
+                if (isStreamOpen) {
+                    closeStream(encoder.getFooterRows());
+                }
+                if (zipOutputStream != null) {
+                    closeZip();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing to file "
+                        + (filePath != null ? filePath.toAbsolutePath().normalize().toString() : "")
+                        + ": " + e.getMessage(), e);
+            } finally {
+                if (zipOutputStream != null) {
+                    try {
+                        zipOutputStream.close();
+                    } catch (IOException e) {
+                        // Already failing so ignore
+                    }
+                }
+            }
+        }
+
+        private void openStream(final List<String> headerRows) throws IOException {
+            if (zipOutputStream == null) {
+                openZip();
+            }
+            streamNo++;
+            zipOutputStream.putNextEntry(new ZipEntry(getEntryName(".dat")));
+            isStreamOpen = true;
+            rowsInStream = 0;
+            bytesInStream = 0;
+            isFirstRowInStream = true;
+            for (final String headerRow : headerRows) {
+                appendSeparatorIfNeeded();
+                buffer.append(headerRow);
+            }
+        }
+
+        private void closeStream(final List<String> footerRows) throws IOException {
+            for (final String footerRow : footerRows) {
+                appendSeparatorIfNeeded();
+                buffer.append(footerRow);
+            }
+            flush();
+            zipOutputStream.closeEntry();
+            isStreamOpen = false;
+
+            writeMetaEntry();
+            if (settings.contextSupplier != null) {
+                writeEntry(".ctx", settings.contextSupplier.get());
+            }
+            streamsInZip++;
+
+            if (streamsInZip >= settings.streamsPerZip
+                    || countingOutputStream.getCount() >= settings.bytesPerZip) {
+                closeZip();
+            }
+        }
+
+        private void writeMetaEntry() throws IOException {
+            buffer.append("GUID:").append(UUID.randomUUID().toString()).append('\n');
+            buffer.append("ReceivedTime:");
+            final StringBuilder stringBuilder = buffer.getScratchBuilder();
+            receivedTimeFormat.render(System.currentTimeMillis(), stringBuilder);
+            buffer.append(stringBuilder).append('\n');
+            buffer.append("StreamSize:").append(bytesInStream).append('\n');
+            for (final Map.Entry<String, Supplier<String>> entry : settings.metaAttributes.entrySet()) {
+                final String value = entry.getValue().get();
+                buffer.append(entry.getKey())
+                        .append(':')
+                        .append(value != null ? value : "")
+                        .append('\n');
+            }
+            zipOutputStream.putNextEntry(new ZipEntry(getEntryName(".meta")));
+            writeBuffer();
+            zipOutputStream.closeEntry();
+        }
+
+        private void writeEntry(final String extension, final String content) throws IOException {
+            zipOutputStream.putNextEntry(new ZipEntry(getEntryName(extension)));
+            if (content != null) {
+                buffer.append(content);
+                writeBuffer();
+            }
+            zipOutputStream.closeEntry();
+        }
+
+        private void openZip() throws IOException {
+            filePath = settings.outputDirectory.resolve(fileNamePattern.replace(
+                    ShardedFileOutputConsumerBuilder.PART_VARIABLE, Integer.toString(partNo++)));
+            countingOutputStream = new CountingOutputStream(Files.newOutputStream(filePath));
+            zipOutputStream = new ZipOutputStream(new BufferedOutputStream(countingOutputStream, WRITE_BUFFER_SIZE));
+            zipOutputStream.setLevel(settings.compressionLevel);
+            streamsInZip = 0;
+            streamNo = 0;
+        }
+
+        private void closeZip() throws IOException {
+            zipOutputStream.close();
+            zipOutputStream = null;
+        }
+
+        /**
+         * @return The stream number padded with zeros, e.g. 0000000001.dat
+         */
+        private String getEntryName(final String extension) {
+            entryNameBuilder.setLength(0);
+            entryNameBuilder.append(streamNo);
+            while (entryNameBuilder.length() < ENTRY_NAME_DIGITS) {
+                entryNameBuilder.insert(0, '0');
+            }
+            return entryNameBuilder.append(extension).toString();
+        }
+
+        private void appendSeparatorIfNeeded() {
+            if (!isFirstRowInStream) {
+                buffer.append(settings.recordSeparator);
+            }
+            isFirstRowInStream = false;
+        }
+
+        private void flush() throws IOException {
+            bytesInStream += buffer.size();
+            writeBuffer();
+        }
+
+        private void writeBuffer() throws IOException {
+            buffer.writeTo(zipOutputStream);
+            buffer.reset();
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    /**
+     * Counts the bytes written to the zip file so far.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        private CountingOutputStream(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
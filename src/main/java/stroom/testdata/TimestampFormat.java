@@ -0,0 +1,163 @@
+package stroom.testdata;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Renders timestamps held as milliseconds or microseconds since the epoch, in UTC, without
+ * creating any date objects for each value. The text for the date and hour of the last value
+ * is cached and only rendered again when the value moves to another hour, or day for
+ * {@link #basicDate()}, so time ordered values only pay for formatting the minutes onwards.
+ * <p>
+ * Each instance has its own cache so should be used by one field, see
+ * {@link DataGenerator#randomTimestampField(String, java.time.Instant, java.time.Instant, TimestampFormat)}.
+ */
+public final class TimestampFormat implements LongRenderer {
+
+    private static final DateTimeFormatter ISO_HOUR_FORMATTER = DateTimeFormatter.ofPattern(
+            "uuuu-MM-dd'T'HH:", Locale.ENGLISH);
+    private static final DateTimeFormatter BASIC_DATE_FORMATTER = DateTimeFormatter.ofPattern(
+            "uuuuMMdd", Locale.ENGLISH);
+
+    private final Style style;
+    private final ChronoUnit precision;
+    private final long unitsPerSecond;
+    private final long unitsPerPrefix;
+
+    // Immutable so can be swapped without locking, a race just means it is rendered again
+    private volatile CachedPrefix cachedPrefix = null;
+
+    private TimestampFormat(final Style style, final ChronoUnit precision) {
+        this.style = style;
+        this.precision = precision;
+        this.unitsPerSecond = precision == ChronoUnit.MICROS
+                ? 1_000_000L
+                : 1_000L;
+        this.unitsPerPrefix = style == Style.BASIC_DATE
+                ? unitsPerSecond * 86_400
+                : unitsPerSecond * 3_600;
+    }
+
+    /**
+     * @return ISO 8601 in UTC with millisecond precision, e.g. 2021-04-30T13:05:09.123Z, for
+     * values in epoch milliseconds.
+     */
+    public static TimestampFormat isoMillis() {
+        return new TimestampFormat(Style.ISO, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * @return ISO 8601 in UTC with microsecond precision, e.g. 2021-04-30T13:05:09.123456Z, for
+     * values in epoch microseconds.
+     */
+    public static TimestampFormat isoMicros() {
+        return new TimestampFormat(Style.ISO, ChronoUnit.MICROS);
+    }
+
+    /**
+     * @return The UTC date as yyyyMMdd, e.g. 20210430, for values in epoch milliseconds.
+     */
+    public static TimestampFormat basicDate() {
+        return new TimestampFormat(Style.BASIC_DATE, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * @return The number of milliseconds since the epoch, e.g. 1619787909123.
+     */
+    public static TimestampFormat epochMillis() {
+        return new TimestampFormat(Style.EPOCH, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * @return The number of microseconds since the epoch, e.g. 1619787909123456.
+     */
+    public static TimestampFormat epochMicros() {
+        return new TimestampFormat(Style.EPOCH, ChronoUnit.MICROS);
+    }
+
+    /**
+     * @return The unit of the values this format renders, {@link ChronoUnit#MILLIS} or
+     * {@link ChronoUnit#MICROS}.
+     */
+    public ChronoUnit getPrecision() {
+        return precision;
+    }
+
+    FieldType getFieldType() {
+        return precision == ChronoUnit.MICROS
+                ? FieldType.EPOCH_MICROS
+                : FieldType.EPOCH_MILLIS;
+    }
+
+    @Override
+    public void render(final long value, final StringBuilder stringBuilder) {
+        if (style == Style.EPOCH) {
+            stringBuilder.append(value);
+            return;
+        }
+
+        final long prefixNo = Math.floorDiv(value, unitsPerPrefix);
+        CachedPrefix cachedPrefix = this.cachedPrefix;
+        if (cachedPrefix == null || cachedPrefix.prefixNo != prefixNo) {
+            cachedPrefix = new CachedPrefix(prefixNo, renderPrefix(prefixNo));
+            this.cachedPrefix = cachedPrefix;
+        }
+        stringBuilder.append(cachedPrefix.text);
+
+        if (style == Style.ISO) {
+            final long unitsInHour = value - (prefixNo * unitsPerPrefix);
+            final long secondsInHour = unitsInHour / unitsPerSecond;
+            appendTwoDigits(stringBuilder, (int) (secondsInHour / 60));
+            stringBuilder.append(':');
+            appendTwoDigits(stringBuilder, (int) (secondsInHour % 60));
+            stringBuilder.append('.');
+            appendFraction(stringBuilder, unitsInHour % unitsPerSecond, unitsPerSecond / 10);
+            stringBuilder.append('Z');
+        }
+    }
+
+    private String renderPrefix(final long prefixNo) {
+        final long epochSecond = prefixNo * (unitsPerPrefix / unitsPerSecond);
+        final LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        return style == Style.BASIC_DATE
+                ? BASIC_DATE_FORMATTER.format(dateTime)
+                : ISO_HOUR_FORMATTER.format(dateTime);
+    }
+
+    private static void appendTwoDigits(final StringBuilder stringBuilder, final int value) {
+        stringBuilder
+                .append((char) ('0' + (value / 10)))
+                .append((char) ('0' + (value % 10)));
+    }
+
+    private static void appendFraction(final StringBuilder stringBuilder,
+                                       final long fraction,
+                                       final long topDigitUnit) {
+        for (long digitUnit = topDigitUnit; digitUnit > 0; digitUnit /= 10) {
+            stringBuilder.append((char) ('0' + ((fraction / digitUnit) % 10)));
+        }
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private enum Style {
+        ISO,
+        BASIC_DATE,
+        EPOCH
+    }
+
+    //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+    private static final class CachedPrefix {
+        private final long prefixNo;
+        private final String text;
+
+        private CachedPrefix(final long prefixNo, final String text) {
+            this.prefixNo = prefixNo;
+            this.text = text;
+        }
+    }
+}
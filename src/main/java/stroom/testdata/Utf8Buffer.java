@@ -0,0 +1,262 @@
+package stroom.testdata;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable buffer that UTF-8 encodes text as it is appended, intended to be reset and
+ * re-used for each record or batch of records so that encoding creates no garbage.
+ * <p>
+ * Not thread safe.
+ */
+public class Utf8Buffer {
+
+    private static final int DEFAULT_CAPACITY = 8 * 1024;
+    private static final byte REPLACEMENT_CHAR = '?';
+
+    private byte[] bytes;
+    private int size = 0;
+    // For values that can only be rendered to a StringBuilder, see Record#appendValue
+    private final StringBuilder scratchBuilder = new StringBuilder();
+
+    public Utf8Buffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public Utf8Buffer(final int initialCapacity) {
+        Utils.checkArgument(initialCapacity > 0, "initialCapacity must be > 0");
+        this.bytes = new byte[initialCapacity];
+    }
+
+    /**
+     * Appends a single char. Surrogate chars cannot be encoded on their own so are replaced
+     * with '?', use {@link #appendCodePoint(int)} or {@link #append(CharSequence)} instead.
+     */
+    public Utf8Buffer append(final char c) {
+        ensureCapacity(3);
+        if (c < 0x80) {
+            bytes[size++] = (byte) c;
+        } else if (Character.isSurrogate(c)) {
+            bytes[size++] = REPLACEMENT_CHAR;
+        } else {
+            encodeBmp(c);
+        }
+        return this;
+    }
+
+    public Utf8Buffer append(final CharSequence charSequence) {
+        return append(charSequence, 0, charSequence.length());
+    }
+
+    /**
+     * Appends chars start (inclusive) to end (exclusive) of charSequence. Unpaired surrogates
+     * are replaced with '?', as {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    public Utf8Buffer append(final CharSequence charSequence, final int start, final int end) {
+        // Worst case is three bytes per char
+        ensureCapacity((end - start) * 3);
+        final byte[] bytes = this.bytes;
+        int pos = this.size;
+        int i = start;
+
+        // Fast path for ASCII
+        while (i < end) {
+            final char c = charSequence.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            bytes[pos++] = (byte) c;
+            i++;
+        }
+        this.size = pos;
+
+        while (i < end) {
+            final char c = charSequence.charAt(i++);
+            if (c < 0x80) {
+                this.bytes[this.size++] = (byte) c;
+            } else if (Character.isHighSurrogate(c)
+                    && i < end
+                    && Character.isLowSurrogate(charSequence.charAt(i))) {
+                encodeSupplementary(Character.toCodePoint(c, charSequence.charAt(i++)));
+            } else if (Character.isSurrogate(c)) {
+                this.bytes[this.size++] = REPLACEMENT_CHAR;
+            } else {
+                encodeBmp(c);
+            }
+        }
+        return this;
+    }
+
+    public Utf8Buffer appendCodePoint(final int codePoint) {
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return append((char) codePoint);
+        } else {
+            Utils.checkArgument(Character.isValidCodePoint(codePoint), "Invalid code point {}", codePoint);
+            ensureCapacity(4);
+            encodeSupplementary(codePoint);
+            return this;
+        }
+    }
+
+    /**
+     * Appends the decimal form of value without creating a String.
+     */
+    public Utf8Buffer append(final long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        ensureCapacity(20);
+        long remaining = value;
+        if (remaining < 0) {
+            bytes[size++] = '-';
+            remaining = -remaining;
+        }
+        final int digitCount = digitCount(remaining);
+        int pos = size + digitCount;
+        size = pos;
+        do {
+            bytes[--pos] = (byte) ('0' + (remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        return this;
+    }
+
+    public Utf8Buffer append(final byte[] bytes, final int offset, final int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, this.bytes, size, length);
+        size += length;
+        return this;
+    }
+
+    public Utf8Buffer append(final Utf8Buffer utf8Buffer) {
+        return append(utf8Buffer.bytes, 0, utf8Buffer.size);
+    }
+
+    /**
+     * @return The number of bytes in the buffer.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Empties the buffer, retaining its capacity.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        outputStream.write(bytes, 0, size);
+    }
+
+    /**
+     * @return A {@link ByteBuffer} wrapping the content of this buffer, without copying it.
+     * It is only valid until this buffer is next modified.
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * @return The content of the buffer decoded as a String.
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return An {@link OutputStream} that appends to this buffer.
+     */
+    OutputStream asOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(final int b) {
+                ensureCapacity(1);
+                bytes[size++] = (byte) b;
+            }
+
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length) {
+                append(bytes, offset, length);
+            }
+        };
+    }
+
+    StringBuilder getScratchBuilder() {
+        scratchBuilder.setLength(0);
+        return scratchBuilder;
+    }
+
+    /**
+     * @return The number of bytes charSequence would be encoded to by {@link #append(CharSequence)},
+     * without encoding it.
+     */
+    static int encodedLength(final CharSequence charSequence) {
+        final int length = charSequence.length();
+        int byteCount = 0;
+        int i = 0;
+        while (i < length) {
+            final char c = charSequence.charAt(i++);
+            if (c < 0x80) {
+                byteCount++;
+            } else if (c < 0x800) {
+                byteCount += 2;
+            } else if (Character.isHighSurrogate(c)
+                    && i < length
+                    && Character.isLowSurrogate(charSequence.charAt(i))) {
+                byteCount += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                byteCount++;
+            } else {
+                byteCount += 3;
+            }
+        }
+        return byteCount;
+    }
+
+    private void encodeBmp(final char c) {
+        if (c < 0x800) {
+            bytes[size++] = (byte) (0xC0 | (c >> 6));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+            bytes[size++] = (byte) (0xE0 | (c >> 12));
+            bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            bytes[size++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void encodeSupplementary(final int codePoint) {
+        bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void ensureCapacity(final int additionalBytes) {
+        final int required = size + additionalBytes;
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+        }
+    }
+
+    private static int digitCount(final long positiveValue) {
+        long limit = 10;
+        for (int digits = 1; digits < 19; digits++) {
+            if (positiveValue < limit) {
+                return digits;
+            }
+            limit *= 10;
+        }
+        return 19;
+    }
+}
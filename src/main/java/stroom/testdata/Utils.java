@@ -1,9 +1,14 @@
 package stroom.testdata;
 
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 public class Utils {
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
     private Utils() {
         // Static util methods only
     }
@@ -44,4 +49,16 @@ public class Utils {
         final String modifiedFormat = format.replace("{}", "%s");
         return String.format(modifiedFormat, formatArgs);
     }
+
+    /**
+     * @return A fixed size pool of daemon threads named namePrefix-n, so an abandoned run can
+     * never stop the JVM from exiting.
+     */
+    static ExecutorService newDaemonThreadPool(final int threadCount, final String namePrefix) {
+        return Executors.newFixedThreadPool(threadCount, runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + "-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
@@ -0,0 +1,67 @@
+package stroom.testdata;
+
+import java.util.Objects;
+
+/**
+ * How often each value of a list is chosen, by its index in the list, e.g. to pick a few users
+ * or hosts far more often than the rest as happens in real data. See
+ * {@link DataGenerator#randomValueField(String, java.util.List, ValueDistribution)}.
+ * <p>
+ * The weighted and Zipfian distributions are built into an alias table when they are created,
+ * so choosing an index takes constant time however many values there are.
+ */
+public interface ValueDistribution {
+
+    /**
+     * @return The number of indexes, i.e. the size of the list of values.
+     */
+    int getSize();
+
+    /**
+     * @return An index between 0 (inclusive) and {@link #getSize()} (exclusive).
+     */
+    int nextIndex(RandomSource random);
+
+    /**
+     * @return Every index is equally likely.
+     */
+    static ValueDistribution uniform(final int size) {
+        Utils.checkArgument(size > 0, "size must be > 0");
+        return new ValueDistribution() {
+            @Override
+            public int getSize() {
+                return size;
+            }
+
+            @Override
+            public int nextIndex(final RandomSource random) {
+                return random.nextInt(size);
+            }
+        };
+    }
+
+    /**
+     * @param weights The relative likelihood of each index, e.g. {3, 1} to choose index 0 three
+     *                times as often as index 1. Must not be negative and must not all be zero.
+     */
+    static ValueDistribution weighted(final double[] weights) {
+        Objects.requireNonNull(weights);
+        return new AliasTable(weights);
+    }
+
+    /**
+     * @param size     The number of indexes.
+     * @param exponent How skewed the distribution is. Index i is chosen in proportion to
+     *                 1 / (i + 1) ^ exponent, so with an exponent of 1 index 0 is twice as likely
+     *                 as index 1 and ten times as likely as index 9. 0 gives a uniform distribution.
+     */
+    static ValueDistribution zipfian(final int size, final double exponent) {
+        Utils.checkArgument(size > 0, "size must be > 0");
+        Utils.checkArgument(exponent >= 0, "exponent must be >= 0");
+        final double[] weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = 1 / Math.pow(i + 1, exponent);
+        }
+        return new AliasTable(weights);
+    }
+}
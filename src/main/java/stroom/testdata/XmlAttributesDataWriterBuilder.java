@@ -1,7 +1,7 @@
 package stroom.testdata;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Produces XML like:
@@ -31,7 +31,7 @@ public class XmlAttributesDataWriterBuilder extends AbstractXmlDataWriterBuilder
         return new XmlAttributesDataWriterBuilder();
     }
 
-    public static DataWriter defaultXmlElementFormat() {
+    public static EncodingDataWriter defaultXmlElementFormat() {
         return XmlAttributesDataWriterBuilder.builder()
                 .build();
     }
@@ -60,14 +60,20 @@ public class XmlAttributesDataWriterBuilder extends AbstractXmlDataWriterBuilder
     }
 
     @Override
-    protected final String buildRecordFormatString(final List<Field> fields) {
-        final String fieldsPart = fields.stream()
-                .map(field -> "<" + fieldValueElementName + " name=\"" + field.getName() + "\" value=\"%s\" />")
-                .collect(Collectors.joining());
+    protected boolean isValueInAttribute() {
+        return true;
+    }
 
-        return "<" + recordElementName + ">"
-                + fieldsPart
-                + "</" + recordElementName + ">";
+    @Override
+    protected final List<String> buildRecordFragments(final List<Field> fields) {
+        final List<String> fragments = new ArrayList<>();
+        String fragment = "<" + recordElementName + ">";
+        for (final Field field : fields) {
+            fragments.add(fragment + "<" + fieldValueElementName + " name=\"" + escape(field.getName(), true) + "\" value=\"");
+            fragment = "\" />";
+        }
+        fragments.add(fragment + "</" + recordElementName + ">");
+        return fragments;
     }
 
 }
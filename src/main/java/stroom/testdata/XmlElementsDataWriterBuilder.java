@@ -1,7 +1,7 @@
 package stroom.testdata;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Produces XML like:
@@ -29,7 +29,7 @@ public class XmlElementsDataWriterBuilder extends AbstractXmlDataWriterBuilder {
         return new XmlElementsDataWriterBuilder();
     }
 
-    public static DataWriter defaultXmlElementFormat() {
+    public static EncodingDataWriter defaultXmlElementFormat() {
         return XmlElementsDataWriterBuilder.builder()
                 .build();
     }
@@ -52,11 +52,15 @@ public class XmlElementsDataWriterBuilder extends AbstractXmlDataWriterBuilder {
         return this;
     }
 
-    protected final String buildRecordFormatString(final List<Field> fields) {
-        final String fieldsPart = fields.stream()
-                .map(field -> "<" + field.getName() + ">%s</" + field.getName() + ">")
-                .collect(Collectors.joining());
-
-        return "<" + recordElementName + ">" + fieldsPart + "</" + recordElementName + ">";
+    @Override
+    protected final List<String> buildRecordFragments(final List<Field> fields) {
+        final List<String> fragments = new ArrayList<>();
+        String fragment = "<" + recordElementName + ">";
+        for (final Field field : fields) {
+            fragments.add(fragment + "<" + field.getName() + ">");
+            fragment = "</" + field.getName() + ">";
+        }
+        fragments.add(fragment + "</" + recordElementName + ">");
+        return fragments;
     }
 }
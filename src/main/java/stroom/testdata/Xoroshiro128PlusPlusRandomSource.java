@@ -0,0 +1,35 @@
+package stroom.testdata;
+
+/**
+ * xoroshiro128++ by David Blackman and Sebastiano Vigna, see https://prng.di.unimi.it/
+ */
+class Xoroshiro128PlusPlusRandomSource extends AbstractRandomSource {
+
+    private long s0;
+    private long s1;
+
+    Xoroshiro128PlusPlusRandomSource(final long seed) {
+        setSeed(seed);
+    }
+
+    @Override
+    public long nextLong() {
+        final long s0 = this.s0;
+        long s1 = this.s1;
+        final long result = Long.rotateLeft(s0 + s1, 17) + s0;
+
+        s1 ^= s0;
+        this.s0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+        this.s1 = Long.rotateLeft(s1, 28);
+        return result;
+    }
+
+    @Override
+    public void setSeed(final long seed) {
+        // Expand the seed with SplitMix64 as recommended by the authors. This can't
+        // produce an all zero state.
+        final long state = seed + 0x9E3779B97F4A7C15L;
+        this.s0 = splitMix64(state);
+        this.s1 = splitMix64(state + 0x9E3779B97F4A7C15L);
+    }
+}
@@ -5,23 +5,47 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.yaml.snakeyaml.Yaml;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.xml.parsers.DocumentBuilderFactory;
 
 public class TestDataGenerator {
 
@@ -73,6 +97,79 @@ public class TestDataGenerator {
         lines.forEach(System.out::println);
     }
 
+    @Test
+    public void testCsv_quoteModes() {
+        final Supplier<DataGenerator.DefinitionBuilder> builderSupplier = () -> DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.sequentialValueField(
+                        "text",
+                        Arrays.asList("plain", "a,b", "say \"hi\"", "two\nlines", "back\\slash")))
+                .addFieldDefinition(DataGenerator.sequentialNumberField("num", 1, 10))
+                .rowCount(5);
+
+        Assertions.assertThat(generateRows(builderSupplier.get()
+                .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())))
+                .containsExactly(
+                        "text,num",
+                        "plain,1",
+                        "\"a,b\",2",
+                        "\"say \"\"hi\"\"\",3",
+                        "\"two\nlines\",4",
+                        "back\\slash,5");
+
+        Assertions.assertThat(generateRows(builderSupplier.get()
+                .setDataWriter(FlatDataWriterBuilder.builder()
+                        .delimitedBy("|")
+                        .enclosedBy("'")
+                        .outputHeaderRow(false)
+                        .build())))
+                .containsExactly(
+                        "'plain'|'1'",
+                        "'a,b'|'2'",
+                        "'say \"hi\"'|'3'",
+                        "'two\nlines'|'4'",
+                        "'back\\slash'|'5'");
+
+        Assertions.assertThat(generateRows(builderSupplier.get()
+                .setDataWriter(FlatDataWriterBuilder.builder()
+                        .quoteMode(FlatDataWriterBuilder.QuoteMode.NONE)
+                        .escapedBy('\\')
+                        .outputHeaderRow(false)
+                        .build())))
+                .containsExactly(
+                        "plain,1",
+                        "a\\,b,2",
+                        "say \"hi\",3",
+                        "two\\\nlines,4",
+                        "back\\\\slash,5");
+
+        // An escape char on its own means no enclosing
+        Assertions.assertThat(generateRows(builderSupplier.get()
+                .setDataWriter(FlatDataWriterBuilder.builder()
+                        .escapedBy('\\')
+                        .outputHeaderRow(false)
+                        .build())))
+                .startsWith("plain,1", "a\\,b,2");
+
+        // It can't be combined with enclosing
+        Assertions.assertThatThrownBy(() -> FlatDataWriterBuilder.builder()
+                .enclosedBy("\"")
+                .escapedBy('\\')
+                .build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("quote mode NONE");
+        Assertions.assertThatThrownBy(() -> FlatDataWriterBuilder.builder()
+                .quoteMode(FlatDataWriterBuilder.QuoteMode.MINIMAL)
+                .escapedBy('\\')
+                .build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<String> generateRows(final DataGenerator.DefinitionBuilder builder) {
+        try (final Stream<String> rowStream = builder.streamRows()) {
+            return rowStream.collect(Collectors.toList());
+        }
+    }
+
     @Test
     public void testMultiLineFileOutputConsumer() {
         DataGenerator.DefinitionBuilder builder = buildBasicDefinition();
@@ -206,6 +303,318 @@ public class TestDataGenerator {
         lines.forEach(System.out::println);
     }
 
+    @Test
+    public void testXml_escaping() throws Exception {
+        final List<String> values = Arrays.asList(
+                "Fish & Chips", "<b>bold</b>", "say \"hi\"", "100% sure", "tab\tand\r\nnew line", "caf\u00e9");
+        final Supplier<DataGenerator.DefinitionBuilder> builderSupplier = () -> DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.sequentialValueField("text", values))
+                .rowCount(values.size());
+
+        final Document elementsDoc = parseXml(generateRows(builderSupplier.get()
+                .setDataWriter(XmlElementsDataWriterBuilder.builder()
+                        .namespace("urn:a&b")
+                        .build())));
+        final NodeList textElements = elementsDoc.getElementsByTagName("text");
+        Assertions.assertThat(elementsDoc.getDocumentElement().getAttribute("xmlns"))
+                .isEqualTo("urn:a&b");
+        Assertions.assertThat(textElements.getLength())
+                .isEqualTo(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Assertions.assertThat(textElements.item(i).getTextContent())
+                    .isEqualTo(values.get(i));
+        }
+
+        final Document attributesDoc = parseXml(generateRows(builderSupplier.get()
+                .setDataWriter(XmlAttributesDataWriterBuilder.defaultXmlElementFormat())));
+        final NodeList dataElements = attributesDoc.getElementsByTagName("data");
+        Assertions.assertThat(dataElements.getLength())
+                .isEqualTo(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Assertions.assertThat(((Element) dataElements.item(i)).getAttribute("value"))
+                    .isEqualTo(values.get(i));
+        }
+    }
+
+    @Test
+    public void testJson() {
+        final Supplier<DataGenerator.DefinitionBuilder> builderSupplier = () -> DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.sequentialValueField(
+                        "text",
+                        Arrays.asList("plain", "say \"hi\"\\", "line\nbreak\u0001", null)))
+                .addFieldDefinition(DataGenerator.sequentialNumberField("num", 1, 10))
+                .addFieldDefinition(Field.ofLong(
+                        "bool", FieldType.BOOLEAN, context -> context.getRowNumber() % 2, LongRenderer.BOOLEAN))
+                .addFieldDefinition(Field.ofDouble(
+                        "dbl", context -> context.getRowNumber() == 4 ? Double.NaN : context.getRowNumber() / 2.0))
+                .addFieldDefinition(DataGenerator.sequentialTimestampField(
+                        "time", Instant.parse("2020-01-01T00:00:00Z"), Duration.ofDays(1), TimestampFormat.isoMillis()))
+                .rowCount(4);
+
+        Assertions.assertThat(generateRows(builderSupplier.get()
+                .setDataWriter(JsonDataWriterBuilder.defaultNdjsonFormat())))
+                .containsExactly(
+                        "{\"text\":\"plain\",\"num\":1,\"bool\":true,\"dbl\":0.5,\"time\":\"2020-01-01T00:00:00.000Z\"}",
+                        "{\"text\":\"say \\\"hi\\\"\\\\\",\"num\":2,\"bool\":false,\"dbl\":1.0,\"time\":\"2020-01-02T00:00:00.000Z\"}",
+                        "{\"text\":\"line\\nbreak\\u0001\",\"num\":3,\"bool\":true,\"dbl\":1.5,\"time\":\"2020-01-03T00:00:00.000Z\"}",
+                        "{\"text\":null,\"num\":4,\"bool\":false,\"dbl\":null,\"time\":\"2020-01-04T00:00:00.000Z\"}");
+
+        // Every object after the first is preceded by a comma, even when generated in parallel
+        final List<String> arrayRows = generateRows(DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.sequentialNumberField("num", 0, 1_000_000))
+                .setDataWriter(JsonDataWriterBuilder.defaultJsonArrayFormat())
+                .multiThreaded()
+                .rowCount(25_000));
+        Assertions.assertThat(arrayRows)
+                .hasSize(25_002)
+                .startsWith("[", "{\"num\":0}", ",{\"num\":1}")
+                .endsWith(",{\"num\":24999}", "]");
+
+        // Records made outside a run have no row number so the encoder tracks the first one
+        final List<Field> fields = Collections.singletonList(
+                DataGenerator.sequentialValueField("text", Collections.singletonList("a")));
+        final RecordEncoder encoder = JsonDataWriterBuilder.defaultJsonArrayFormat().createEncoder(fields);
+        final List<String> unnumberedRows = new ArrayList<>(encoder.getHeaderRows());
+        for (final String value : Arrays.asList("a", "b", "c")) {
+            final Utf8Buffer buffer = new Utf8Buffer();
+            encoder.encodeRecord(new Record(fields, Collections.singletonList(value)), buffer);
+            unnumberedRows.add(buffer.toString());
+        }
+        unnumberedRows.addAll(encoder.getFooterRows());
+        Assertions.assertThat(unnumberedRows)
+                .containsExactly("[", "{\"text\":\"a\"}", ",{\"text\":\"b\"}", ",{\"text\":\"c\"}", "]");
+    }
+
+    @Test
+    public void testFixedWidth() {
+        final List<String> rows = generateRows(DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.sequentialValueField(
+                        "text",
+                        Arrays.asList("short", "much too long", "abcdefgh\uD83D\uDE00", null)))
+                .addFieldDefinition(DataGenerator.sequentialNumberField("num", 1, 10))
+                .setDataWriter(FixedWidthDataWriterBuilder.builder()
+                        .fieldWidth("text", 9)
+                        .defaultFieldWidth(4)
+                        .build())
+                .rowCount(4));
+
+        // Numbers are aligned right and a surrogate pair is never split
+        Assertions.assertThat(rows)
+                .containsExactly(
+                        "text     num ",
+                        "short       1",
+                        "much too    2",
+                        "abcdefgh    3",
+                        "            4");
+    }
+
+    @Test
+    public void testColumnarOutputConsumer() throws IOException {
+        final Path file = tempDir.resolve("data.col");
+        final Instant startTime = Instant.parse("2020-01-01T00:00:00Z");
+        DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.sequentialValueField(
+                        "text",
+                        Arrays.asList("plain", "caf\u00e9", null)))
+                .addFieldDefinition(DataGenerator.sequentialNumberField("num", 1, 10))
+                .addFieldDefinition(Field.ofLong(
+                        "bool", FieldType.BOOLEAN, context -> context.getRowNumber() % 2, LongRenderer.BOOLEAN))
+                .addFieldDefinition(Field.ofDouble("dbl", context -> context.getRowNumber() / 2.0))
+                .addFieldDefinition(DataGenerator.sequentialTimestampField(
+                        "time", startTime, Duration.ofDays(1), TimestampFormat.isoMillis()))
+                .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())
+                .rowCount(5)
+                .consumedBy(ColumnarOutputConsumerBuilder.builder()
+                        .outputFile(file)
+                        .rowsPerBatch(3)
+                        .build())
+                .generate();
+
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(Files.readAllBytes(file))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        final byte[] magic = new byte[8];
+        byteBuffer.get(magic);
+        Assertions.assertThat(new String(magic, StandardCharsets.US_ASCII))
+                .isEqualTo("STDCOL01");
+
+        final int columnCount = byteBuffer.getInt();
+        final List<String> columns = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            final int typeCode = byteBuffer.get();
+            final byte[] name = new byte[byteBuffer.getInt()];
+            byteBuffer.get(name);
+            columns.add(new String(name, StandardCharsets.UTF_8) + ":" + typeCode);
+        }
+        Assertions.assertThat(columns)
+                .containsExactly("text:1", "num:2", "bool:4", "dbl:3", "time:5");
+        align(byteBuffer);
+
+        // Read the batches back as rows of the column values
+        final List<String> rows = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        int rowCount;
+        while ((rowCount = byteBuffer.getInt()) > 0) {
+            align(byteBuffer);
+            batchSizes.add(rowCount);
+            final String[][] values = new String[rowCount][columnCount];
+            final int bitmapLength = (rowCount + 7) / 8;
+            for (int col = 0; col < columnCount; col++) {
+                final byte[] validity = new byte[bitmapLength];
+                byteBuffer.get(validity);
+                align(byteBuffer);
+                if (col == 0) {
+                    final int[] offsets = new int[rowCount + 1];
+                    for (int row = 0; row <= rowCount; row++) {
+                        offsets[row] = byteBuffer.getInt();
+                    }
+                    align(byteBuffer);
+                    final byte[] data = new byte[offsets[rowCount]];
+                    byteBuffer.get(data);
+                    align(byteBuffer);
+                    for (int row = 0; row < rowCount; row++) {
+                        values[row][col] = new String(
+                                data, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+                    }
+                } else if (col == 2) {
+                    final byte[] bits = new byte[bitmapLength];
+                    byteBuffer.get(bits);
+                    align(byteBuffer);
+                    for (int row = 0; row < rowCount; row++) {
+                        values[row][col] = String.valueOf((bits[row / 8] & (1 << (row % 8))) != 0);
+                    }
+                } else {
+                    for (int row = 0; row < rowCount; row++) {
+                        values[row][col] = col == 3
+                                ? String.valueOf(byteBuffer.getDouble())
+                                : String.valueOf(byteBuffer.getLong());
+                    }
+                }
+                for (int row = 0; row < rowCount; row++) {
+                    if ((validity[row / 8] & (1 << (row % 8))) == 0) {
+                        values[row][col] = "null";
+                    }
+                }
+            }
+            for (final String[] row : values) {
+                rows.add(String.join(",", row));
+            }
+        }
+        align(byteBuffer);
+        Assertions.assertThat(byteBuffer.remaining())
+                .isZero();
+        Assertions.assertThat(batchSizes)
+                .containsExactly(3, 2);
+
+        final long day = Duration.ofDays(1).toMillis();
+        final long start = startTime.toEpochMilli();
+        Assertions.assertThat(rows)
+                .containsExactly(
+                        "plain,1,true,0.5," + start,
+                        "caf\u00e9,2,false,1.0," + (start + day),
+                        "null,3,true,1.5," + (start + 2 * day),
+                        "plain,4,false,2.0," + (start + 3 * day),
+                        "caf\u00e9,5,true,2.5," + (start + 4 * day));
+    }
+
+    @Test
+    public void testColumnarFileReader() throws IOException {
+        final Supplier<DataGenerator.DefinitionBuilder> builderSupplier = () -> buildRepeatableDefinition()
+                .addFieldDefinition(DataGenerator.randomValueField("maybe", Arrays.asList("yes", null)))
+                .addFieldDefinition(Field.ofLong(
+                        "bool", FieldType.BOOLEAN, context -> context.getRandom().nextInt(2), LongRenderer.BOOLEAN))
+                .addFieldDefinition(Field.ofDouble("dbl", context -> context.getRandom().nextDouble()))
+                .addFieldDefinition(DataGenerator.randomTimestampField(
+                        "time",
+                        Instant.parse("2020-01-01T00:00:00Z"),
+                        Instant.parse("2021-01-01T00:00:00Z"),
+                        TimestampFormat.isoMicros()))
+                .rowCount(250);
+
+        final Path file = tempDir.resolve("reader.col");
+        builderSupplier.get()
+                .consumedBy(ColumnarOutputConsumerBuilder.builder()
+                        .outputFile(file)
+                        .rowsPerBatch(100)
+                        .build())
+                .generate();
+        final List<Record> expectedRecords;
+        try (final Stream<Record> recordStream = builderSupplier.get().streamRecords()) {
+            expectedRecords = recordStream.collect(Collectors.toList());
+        }
+
+        final List<Integer> batchSizes = new ArrayList<>();
+        int rowNo = 0;
+        try (final ColumnarFileReader reader = ColumnarFileReader.open(file)) {
+            final List<ColumnarFileReader.Column> columns = reader.getColumns();
+            Assertions.assertThat(columns)
+                    .extracting(ColumnarFileReader.Column::getName)
+                    .isEqualTo(expectedRecords.get(0).getFieldDefinitions().stream()
+                            .map(Field::getName)
+                            .collect(Collectors.toList()));
+
+            ColumnarFileReader.Batch batch;
+            while ((batch = reader.nextBatch()) != null) {
+                batchSizes.add(batch.getRowCount());
+                for (int row = 0; row < batch.getRowCount(); row++) {
+                    final Record record = expectedRecords.get(rowNo++);
+                    for (int col = 0; col < columns.size(); col++) {
+                        final Object actual;
+                        final Object expected;
+                        switch (columns.get(col).getType()) {
+                            case UTF8:
+                                actual = batch.getString(col, row);
+                                expected = record.getValue(col);
+                                break;
+                            case FLOAT64:
+                                actual = batch.getDouble(col, row);
+                                expected = record.getDouble(col);
+                                break;
+                            case BOOL:
+                                actual = batch.getBoolean(col, row);
+                                expected = record.getLong(col) != 0;
+                                break;
+                            default:
+                                actual = batch.getLong(col, row);
+                                expected = record.getLong(col);
+                        }
+                        Assertions.assertThat(actual)
+                                .describedAs("row %s column %s", rowNo, columns.get(col))
+                                .isEqualTo(expected);
+                    }
+                }
+                final ColumnarFileReader.Batch lastBatch = batch;
+                Assertions.assertThatThrownBy(() -> lastBatch.getString(0, 0))
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+            Assertions.assertThat(reader.nextBatch())
+                    .isNull();
+            Assertions.assertThat(columns)
+                    .extracting(ColumnarFileReader.Column::getType)
+                    .contains(ColumnarOutputConsumerBuilder.ColumnType.UTF8,
+                            ColumnarOutputConsumerBuilder.ColumnType.BOOL,
+                            ColumnarOutputConsumerBuilder.ColumnType.FLOAT64,
+                            ColumnarOutputConsumerBuilder.ColumnType.TIMESTAMP_MICROS);
+        }
+        Assertions.assertThat(batchSizes)
+                .containsExactly(100, 100, 50);
+
+        final Path textFile = tempDir.resolve("text.col");
+        Files.write(textFile, "not columnar".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertThatThrownBy(() -> ColumnarFileReader.open(textFile))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static void align(final ByteBuffer byteBuffer) {
+        byteBuffer.position((byteBuffer.position() + 7) & ~7);
+    }
+
+    private static Document parseXml(final List<String> rows) throws Exception {
+        final byte[] bytes = String.join("\n", rows).getBytes(StandardCharsets.UTF_8);
+        return DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder()
+                .parse(new ByteArrayInputStream(bytes));
+    }
+
     @Test
     public void testRandomWordsField_singleItem() {
         Field field = DataGenerator.randomWordsField(
@@ -234,6 +643,68 @@ public class TestDataGenerator {
                 .withMessageContaining("wordList must have size greater than zero");
     }
 
+    @Test
+    public void testRandomWordsField_wordCount() {
+        final Field field = DataGenerator.randomWordsField(
+                "myField",
+                1,
+                3,
+                Collections.singletonList("word"));
+
+        final Set<Integer> wordCounts = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            wordCounts.add(field.getNext().split(" ").length);
+        }
+        Assertions.assertThat(wordCounts)
+                .containsExactlyInAnyOrder(1, 2, 3);
+
+        // White space in the words is tidied and empty words are skipped
+        final Field untidyField = DataGenerator.randomWordsField(
+                "myField",
+                2,
+                2,
+                Collections.singletonList("  big\t\tdog "));
+        Assertions.assertThat(untidyField.getNext())
+                .isEqualTo("big dog big dog");
+        final Field emptyField = DataGenerator.randomWordsField(
+                "myField",
+                3,
+                3,
+                Collections.singletonList(""));
+        Assertions.assertThat(emptyField.getNext())
+                .isEmpty();
+
+        // Long phrases are built whole, however many words
+        final Field longField = DataGenerator.randomWordsField(
+                "myField",
+                20_000,
+                20_000,
+                Collections.singletonList("words"));
+        Assertions.assertThat(longField.getNext())
+                .hasSize((20_000 * 6) - 1);
+        Assertions.assertThatThrownBy(() -> DataGenerator.randomWordsField(
+                "myField",
+                0,
+                Integer.MAX_VALUE,
+                Collections.singletonList("words")))
+                .hasMessageContaining("too long");
+    }
+
+    @Test
+    public void testGetNext_primitiveFields() {
+        final Field longField = DataGenerator.randomNumberField("myField", 0, 10);
+        Assertions.assertThat(Integer.parseInt(longField.getNext()))
+                .isBetween(0, 9);
+
+        final Field ipField = DataGenerator.randomIpV4Field("myField");
+        Assertions.assertThat(ipField.getNext())
+                .matches("\\d+\\.\\d+\\.\\d+\\.\\d+");
+
+        final Field doubleField = Field.ofDouble("myField", context -> 1.5);
+        Assertions.assertThat(doubleField.getNext())
+                .isEqualTo("1.5");
+    }
+
     private DataGenerator.DefinitionBuilder buildBasicDefinition() {
         //start building a definition that uses all field types
         return DataGenerator.buildDefinition()
@@ -362,6 +833,799 @@ public class TestDataGenerator {
         }
     }
 
+    @Test
+    void testRandomRepeatability_multiThreaded() {
+        final List<String> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DataGenerator.buildDefinition()
+                    .withRandomSeed(123456L)
+                    .multiThreaded()
+                    .addFieldDefinition(DataGenerator.sequentialNumberField(
+                            "seq",
+                            0,
+                            1_000_000))
+                    .addFieldDefinition(DataGenerator.randomNumberField(
+                            "num",
+                            1,
+                            1000))
+                    .addFieldDefinition(DataGenerator.randomDateTimeField(
+                            "date",
+                            LocalDateTime.of(2016, 1, 1, 0, 0, 0),
+                            LocalDateTime.of(2018, 1, 1, 0, 0, 0),
+                            DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                    .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())
+                    .consumedBy(stringStream ->
+                            results.add(stringStream
+                                    .collect(Collectors.joining("\n"))))
+                    .rowCount(12_000)
+                    .generate();
+            if (i > 0) {
+                // Ensure each result is the same
+                Assertions.assertThat(results.get(i))
+                        .isEqualTo(results.get(0));
+            }
+        }
+
+        // Sequential fields follow the row number so must be in order
+        final List<String> lines = Arrays.asList(results.get(0).split("\n"));
+        Assertions.assertThat(lines)
+                .hasSize(12_001);
+        Assertions.assertThat(lines.get(1).split(",")[0])
+                .isEqualTo("0");
+        Assertions.assertThat(lines.get(12_000).split(",")[0])
+                .isEqualTo("11999");
+    }
+
+    @Test
+    void testConcurrentGenerators() throws Exception {
+        final int threadCount = 4;
+        final String expected = generateSeededCsv(987654L);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executorService.submit(() -> generateSeededCsv(987654L)));
+            }
+            for (final Future<String> future : futures) {
+                // Each generator has its own random state so must not disturb the others
+                Assertions.assertThat(future.get())
+                        .isEqualTo(expected);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private String generateSeededCsv(final long seed) {
+        final List<String> results = new ArrayList<>();
+        DataGenerator.buildDefinition()
+                .withRandomSeed(seed)
+                .addFieldDefinition(DataGenerator.randomValueField(
+                        "colour",
+                        Arrays.asList("Red", "Green", "Blue")))
+                .addFieldDefinition(DataGenerator.randomIpV4Field("ip"))
+                .addFieldDefinition(DataGenerator.randomWordsField(
+                        "words",
+                        1,
+                        5,
+                        Arrays.asList("attractive", "bald", "beautiful", "chubby", "drab")))
+                .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())
+                .consumedBy(stringStream ->
+                        results.add(stringStream
+                                .collect(Collectors.joining("\n"))))
+                .rowCount(2_000)
+                .generate();
+        return results.get(0);
+    }
+
+    @Test
+    void testTypedRecordValues() {
+        final List<Record> records = new ArrayList<>();
+        DataGenerator.buildDefinition()
+                .withRandomSeed(123456L)
+                .addFieldDefinition(DataGenerator.sequentialNumberField(
+                        "seq",
+                        10,
+                        20))
+                .addFieldDefinition(DataGenerator.randomIpV4Field("ip"))
+                .addFieldDefinition(DataGenerator.randomDateTimeField(
+                        "date",
+                        LocalDateTime.of(2016, 1, 1, 0, 0, 0),
+                        LocalDateTime.of(2016, 1, 2, 0, 0, 0),
+                        DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .addFieldDefinition(Field.ofDouble(
+                        "half",
+                        context -> context.getRowNumber() / 2.0))
+                .addFieldDefinition(DataGenerator.uuidField("uuid"))
+                .setDataWriter((fieldDefinitions, recordStream) ->
+                        recordStream
+                                .peek(records::add)
+                                .map(record -> String.join(",", record.getValues())))
+                .consumedBy(stringStream -> stringStream.forEach(LOGGER::debug))
+                .rowCount(5)
+                .generate();
+
+        Assertions.assertThat(records)
+                .hasSize(5);
+        final Record record = records.get(2);
+        Assertions.assertThat(record.getType(0))
+                .isEqualTo(FieldType.LONG);
+        Assertions.assertThat(record.getLong(0))
+                .isEqualTo(12L);
+        Assertions.assertThat(record.getValue(0))
+                .isEqualTo("12");
+
+        Assertions.assertThat(record.getType(1))
+                .isEqualTo(FieldType.STRING);
+        Assertions.assertThat(record.getValue(1))
+                .matches("[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}");
+
+        Assertions.assertThat(record.getType(2))
+                .isEqualTo(FieldType.EPOCH_MILLIS);
+        Assertions.assertThat(record.getValue(2))
+                .startsWith("2016-01-01T");
+
+        Assertions.assertThat(record.getDouble(3))
+                .isEqualTo(1.5);
+
+        Assertions.assertThat(record.isLong(4))
+                .isFalse();
+        final StringBuilder stringBuilder = new StringBuilder();
+        record.appendValue(4, stringBuilder);
+        Assertions.assertThat(stringBuilder.toString())
+                .isEqualTo(record.getValue(4));
+    }
+
+    @Test
+    void testEncodedFileOutputConsumer() throws IOException {
+        final List<DataWriter> dataWriters = Arrays.asList(
+                FlatDataWriterBuilder.defaultCsvFormat(),
+                XmlElementsDataWriterBuilder.defaultXmlElementFormat(),
+                XmlAttributesDataWriterBuilder.defaultXmlElementFormat());
+
+        for (final DataWriter dataWriter : dataWriters) {
+            final List<String> results = new ArrayList<>();
+            buildRepeatableDefinition()
+                    .setDataWriter(dataWriter)
+                    .rowCount(500)
+                    .consumedBy(stringStream ->
+                            results.add(stringStream
+                                    .collect(Collectors.joining("\n"))))
+                    .generate();
+
+            final Path encodedFile = getTempFilePath();
+            buildRepeatableDefinition()
+                    .setDataWriter(dataWriter)
+                    .rowCount(500)
+                    .consumedBy(DataGenerator.getEncodedFileOutputConsumer(encodedFile))
+                    .generate();
+
+            // The encoded consumer always writes UTF-8, unlike the platform charset FileWriter
+            Assertions.assertThat(Files.readAllBytes(encodedFile))
+                    .isEqualTo(results.get(0).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testParallelFileOutputConsumer() throws IOException {
+        for (final DataWriter dataWriter : Arrays.asList(
+                FlatDataWriterBuilder.defaultCsvFormat(),
+                XmlElementsDataWriterBuilder.defaultXmlElementFormat())) {
+
+            final Path expectedFile = getTempFilePath();
+            buildRepeatableDefinition()
+                    .multiThreaded()
+                    .setDataWriter(dataWriter)
+                    .rowCount(12_345)
+                    .consumedBy(DataGenerator.getEncodedFileOutputConsumer(expectedFile))
+                    .generate();
+
+            // Small chunks so there are many more chunks than threads
+            final Path actualFile = getTempFilePath();
+            buildRepeatableDefinition()
+                    .multiThreaded()
+                    .setDataWriter(dataWriter)
+                    .rowCount(12_345)
+                    .consumedBy(new ParallelFileOutputConsumer(actualFile, "\n", 100, 3))
+                    .generate();
+
+            Assertions.assertThat(Files.readAllBytes(actualFile))
+                    .isEqualTo(Files.readAllBytes(expectedFile));
+        }
+    }
+
+    @Test
+    void testCompressedFileOutputConsumer_gzip() throws IOException {
+        final Path expectedFile = getTempFilePath();
+        buildRepeatableDefinition()
+                .multiThreaded()
+                .setDataWriter(XmlElementsDataWriterBuilder.defaultXmlElementFormat())
+                .rowCount(5_000)
+                .consumedBy(DataGenerator.getEncodedFileOutputConsumer(expectedFile))
+                .generate();
+
+        // Small chunks so there are many gzip members
+        final Path gzipFile = getTempFilePath();
+        buildRepeatableDefinition()
+                .multiThreaded()
+                .setDataWriter(XmlElementsDataWriterBuilder.defaultXmlElementFormat())
+                .rowCount(5_000)
+                .consumedBy(new ParallelFileOutputConsumer(gzipFile, "\n", 100, 3, BlockCompressor.gzip()))
+                .generate();
+
+        final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (final InputStream inputStream = new GZIPInputStream(Files.newInputStream(gzipFile))) {
+            final byte[] bytes = new byte[8192];
+            int count;
+            while ((count = inputStream.read(bytes)) >= 0) {
+                decompressed.write(bytes, 0, count);
+            }
+        }
+        Assertions.assertThat(decompressed.toByteArray())
+                .isEqualTo(Files.readAllBytes(expectedFile));
+        Assertions.assertThat(Files.size(gzipFile))
+                .isLessThan(Files.size(expectedFile));
+    }
+
+    @Test
+    void testMappedFileOutputConsumer() throws IOException {
+        final Path expectedFile = getTempFilePath();
+        final Path actualFile = getTempFilePath();
+        for (int i = 0; i < 2; i++) {
+            // The second run appends to the file
+            buildRepeatableDefinition()
+                    .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())
+                    .rowCount(2_000)
+                    .consumedBy(DataGenerator.getEncodedFileOutputConsumer(expectedFile))
+                    .generate();
+
+            // A small region size so many regions are mapped, with records spanning regions
+            buildRepeatableDefinition()
+                    .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())
+                    .rowCount(2_000)
+                    .consumedBy(DataGenerator.getMappedFileOutputConsumer(actualFile, "\n", 4_099))
+                    .generate();
+        }
+
+        Assertions.assertThat(Files.readAllBytes(actualFile))
+                .isEqualTo(Files.readAllBytes(expectedFile));
+    }
+
+    @Test
+    void testShardedFileOutputConsumer() throws IOException {
+        final List<String> expectedRows = new ArrayList<>();
+        buildRepeatableDefinition()
+                .multiThreaded()
+                .setDataWriter(FlatDataWriterBuilder.builder()
+                        .outputHeaderRow(false)
+                        .build())
+                .rowCount(1_003)
+                .consumedBy(stringStream -> stringStream.forEach(expectedRows::add))
+                .generate();
+
+        final Path dir = tempDir.resolve("sharded");
+        buildRepeatableDefinition()
+                .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())
+                .rowCount(1_003)
+                .consumedBy(ShardedFileOutputConsumerBuilder.builder()
+                        .outputDirectory(dir)
+                        .fileNamePattern("data_${shard}_${part}.csv")
+                        .shardCount(4)
+                        .rowsPerFile(100)
+                        .build())
+                .generate();
+
+        // 1003 rows in 4 shards of 250 or 251 rows, each in files of up to 100 rows
+        final List<Path> files;
+        try (final Stream<Path> pathStream = Files.list(dir)) {
+            files = pathStream.sorted().collect(Collectors.toList());
+        }
+        Assertions.assertThat(files)
+                .hasSize(4 * 3);
+        Assertions.assertThat(dir.resolve("data_3_2.csv"))
+                .isRegularFile();
+
+        final List<String> actualRows = new ArrayList<>();
+        for (final Path file : files) {
+            final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            Assertions.assertThat(lines.get(0))
+                    .startsWith("sequentialNumberField,");
+            Assertions.assertThat(lines.size() - 1)
+                    .isBetween(50, 100);
+            actualRows.addAll(lines.subList(1, lines.size()));
+        }
+        // Files sort in row order as there are fewer than 10 shards and parts
+        Assertions.assertThat(actualRows)
+                .isEqualTo(expectedRows);
+    }
+
+    @Test
+    void testStroomZipOutputConsumer() throws IOException {
+        final List<String> expectedRows = new ArrayList<>();
+        buildRepeatableDefinition()
+                .multiThreaded()
+                .setDataWriter(FlatDataWriterBuilder.builder()
+                        .outputHeaderRow(false)
+                        .build())
+                .rowCount(250)
+                .consumedBy(stringStream -> stringStream.forEach(expectedRows::add))
+                .generate();
+
+        final Path dir = tempDir.resolve("zips");
+        buildRepeatableDefinition()
+                .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())
+                .rowCount(250)
+                .consumedBy(StroomZipOutputConsumerBuilder.builder()
+                        .outputDirectory(dir)
+                        .fileNamePattern("aggregate_${shard}_${part}.zip")
+                        .shardCount(2)
+                        .rowsPerStream(50)
+                        .streamsPerZip(2)
+                        .feed("TEST_FEED")
+                        .metaAttribute("System", "TEST")
+                        .context(() -> "<context/>")
+                        .build())
+                .generate();
+
+        // 250 rows in 2 shards of 125 rows, each in streams of up to 50 rows, two streams per zip
+        final List<Path> files;
+        try (final Stream<Path> pathStream = Files.list(dir)) {
+            files = pathStream.sorted().collect(Collectors.toList());
+        }
+        Assertions.assertThat(files)
+                .extracting(file -> file.getFileName().toString())
+                .containsExactly("aggregate_0_0.zip", "aggregate_0_1.zip", "aggregate_1_0.zip", "aggregate_1_1.zip");
+
+        final List<String> actualRows = new ArrayList<>();
+        for (final Path file : files) {
+            final Map<String, String> entries = readZipEntries(file);
+            Assertions.assertThat(entries.keySet())
+                    .startsWith("0000000001.dat", "0000000001.meta", "0000000001.ctx");
+            for (final Map.Entry<String, String> entry : entries.entrySet()) {
+                if (entry.getKey().endsWith(".dat")) {
+                    final String meta = entries.get(entry.getKey().replace(".dat", ".meta"));
+                    Assertions.assertThat(meta)
+                            .contains("Feed:TEST_FEED\n", "System:TEST\n", "GUID:", "ReceivedTime:")
+                            .contains("StreamSize:" + entry.getValue().getBytes(StandardCharsets.UTF_8).length + "\n");
+                    Assertions.assertThat(entries.get(entry.getKey().replace(".dat", ".ctx")))
+                            .isEqualTo("<context/>");
+
+                    final List<String> lines = Arrays.asList(entry.getValue().split("\n"));
+                    Assertions.assertThat(lines.get(0))
+                            .startsWith("sequentialNumberField,");
+                    actualRows.addAll(lines.subList(1, lines.size()));
+                }
+            }
+        }
+        Assertions.assertThat(actualRows)
+                .isEqualTo(expectedRows);
+    }
+
+    @Test
+    void testShardedFileOutputConsumer_jsonArray() throws IOException {
+        final Path dir = tempDir.resolve("shardedJson");
+        DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.sequentialNumberField("num", 0, 1_000))
+                .setDataWriter(JsonDataWriterBuilder.defaultJsonArrayFormat())
+                .rowCount(14)
+                .consumedBy(ShardedFileOutputConsumerBuilder.builder()
+                        .outputDirectory(dir)
+                        .fileNamePattern("data_${shard}_${part}.json")
+                        .shardCount(2)
+                        .rowsPerFile(3)
+                        .build())
+                .generate();
+
+        // 14 rows in 2 shards of 7 rows, each in files of 3, 3 and 1 rows, every file an array
+        final List<Path> files;
+        try (final Stream<Path> pathStream = Files.list(dir)) {
+            files = pathStream.sorted().collect(Collectors.toList());
+        }
+        Assertions.assertThat(files)
+                .hasSize(2 * 3);
+        final List<Object> values = new ArrayList<>();
+        for (final Path file : files) {
+            final List<Map<String, Object>> objects = parseJsonArray(
+                    new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            Assertions.assertThat(objects.size())
+                    .isBetween(1, 3);
+            objects.forEach(object -> values.add(object.get("num")));
+        }
+        Assertions.assertThat(values)
+                .containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13);
+    }
+
+    @Test
+    void testStroomZipOutputConsumer_documentPerStream() throws Exception {
+        final List<EncodingDataWriter> dataWriters = Arrays.asList(
+                JsonDataWriterBuilder.defaultJsonArrayFormat(),
+                XmlElementsDataWriterBuilder.defaultXmlElementFormat(),
+                XmlAttributesDataWriterBuilder.defaultXmlElementFormat());
+        for (int i = 0; i < dataWriters.size(); i++) {
+            final Path dir = tempDir.resolve("zipDocuments" + i);
+            DataGenerator.buildDefinition()
+                    .addFieldDefinition(DataGenerator.sequentialNumberField("num", 0, 1_000))
+                    .setDataWriter(dataWriters.get(i))
+                    .rowCount(10)
+                    .consumedBy(StroomZipOutputConsumerBuilder.builder()
+                            .outputDirectory(dir)
+                            .fileNamePattern("aggregate_${shard}_${part}.zip")
+                            .shardCount(1)
+                            .rowsPerStream(3)
+                            .streamsPerZip(2)
+                            .build())
+                    .generate();
+
+            // 10 rows in streams of 3, 3, 3 and 1 rows, each a document of its own
+            final List<Integer> recordCounts = new ArrayList<>();
+            for (final String file : Arrays.asList("aggregate_0_0.zip", "aggregate_0_1.zip")) {
+                for (final Map.Entry<String, String> entry : readZipEntries(dir.resolve(file)).entrySet()) {
+                    if (entry.getKey().endsWith(".dat")) {
+                        if (i == 0) {
+                            recordCounts.add(parseJsonArray(entry.getValue()).size());
+                        } else {
+                            final Element root = parseXml(Collections.singletonList(entry.getValue()))
+                                    .getDocumentElement();
+                            int count = 0;
+                            for (int j = 0; j < root.getChildNodes().getLength(); j++) {
+                                if (root.getChildNodes().item(j) instanceof Element) {
+                                    count++;
+                                }
+                            }
+                            recordCounts.add(count);
+                        }
+                    }
+                }
+            }
+            Assertions.assertThat(recordCounts)
+                    .containsExactly(3, 3, 3, 1);
+        }
+    }
+
+    /**
+     * Parses a JSON array of objects with SnakeYAML, which comes with Faker, as JSON is a subset
+     * of the YAML flow style.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> parseJsonArray(final String json) {
+        return (List<Map<String, Object>>) new Yaml().load(json);
+    }
+
+    private static Map<String, String> readZipEntries(final Path file) throws IOException {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        try (final ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(file))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                final byte[] bytes = new byte[1024];
+                int length;
+                while ((length = zipInputStream.read(bytes)) > 0) {
+                    byteArrayOutputStream.write(bytes, 0, length);
+                }
+                entries.put(entry.getName(), new String(byteArrayOutputStream.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void testXmlElements_multiThreaded() {
+        final DataWriter xmlWriter = XmlElementsDataWriterBuilder.defaultXmlElementFormat();
+        // Only has the whole stream form so records are mapped after the parallel chunks
+        final DataWriter streamOnlyXmlWriter = xmlWriter::mapRecords;
+
+        final List<List<String>> results = new ArrayList<>();
+        for (final DataWriter dataWriter : Arrays.asList(xmlWriter, streamOnlyXmlWriter)) {
+            buildRepeatableDefinition()
+                    .multiThreaded()
+                    .setDataWriter(dataWriter)
+                    .rowCount(12_000)
+                    .consumedBy(stringStream ->
+                            results.add(stringStream.collect(Collectors.toList())))
+                    .generate();
+        }
+
+        Assertions.assertThat(results.get(0))
+                .hasSize(12_000 + 3)
+                .startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>", "<records>")
+                .endsWith("</records>")
+                .isEqualTo(results.get(1));
+        Assertions.assertThat(results.get(0).get(12_000 + 1))
+                .contains("<sequentialNumberField>9</sequentialNumberField>");
+    }
+
+    @Test
+    void testSequentialTimestampField() {
+        final List<String> rows = new ArrayList<>();
+        DataGenerator.buildDefinition()
+                .withRandomSeed(123456L)
+                .addFieldDefinition(DataGenerator.sequentialTimestampField(
+                        "timestamp",
+                        Instant.parse("2020-01-01T00:00:00Z"),
+                        Duration.ofDays(30),
+                        TimestampFormat.isoMicros()))
+                .addFieldDefinition(DataGenerator.sequentialDateTimeField(
+                        "dateTime",
+                        LocalDateTime.of(2020, 1, 1, 0, 0, 0),
+                        Duration.ofDays(30),
+                        DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .setDataWriter(FlatDataWriterBuilder.builder()
+                        .outputHeaderRow(false)
+                        .build())
+                .rowCount(100)
+                .consumedBy(stringStream -> stringStream.forEach(rows::add))
+                .generate();
+
+        // 99 * 30 days is well beyond Integer.MAX_VALUE millis
+        Assertions.assertThat(rows)
+                .hasSize(100)
+                .startsWith("2020-01-01T00:00:00.000000Z,2020-01-01T00:00:00")
+                .endsWith("2028-02-18T00:00:00.000000Z,2028-02-18T00:00:00");
+    }
+
+    @Test
+    void testStreamRows_unbounded() {
+        final int rowCount = 25_000;
+        for (final boolean isMultiThreaded : Arrays.asList(false, true)) {
+            // Sequential fields keep their state between runs so each run needs its own definition
+            final Supplier<DataGenerator.DefinitionBuilder> builderSupplier = () -> {
+                final DataGenerator.DefinitionBuilder builder = buildRepeatableDefinition();
+                return isMultiThreaded
+                        ? builder.multiThreaded()
+                        : builder;
+            };
+
+            final List<String> expectedRows = new ArrayList<>();
+            builderSupplier.get()
+                    .rowCount(rowCount)
+                    .consumedBy(stringStream -> stringStream.forEach(expectedRows::add))
+                    .generate();
+
+            // Only the rows pulled are generated so this stops despite having no end
+            final List<String> actualRows = new ArrayList<>();
+            final Iterator<String> rowIterator = builderSupplier.get()
+                    .unbounded()
+                    .streamRows()
+                    .iterator();
+            while (actualRows.size() < rowCount + 1) {
+                actualRows.add(rowIterator.next());
+            }
+            Assertions.assertThat(actualRows)
+                    .isEqualTo(expectedRows);
+            Assertions.assertThat(rowIterator.hasNext())
+                    .isTrue();
+
+            try (final Stream<Record> recordStream = builderSupplier.get().unbounded().streamRecords()) {
+                // Values 5 to 9 in turn
+                Assertions.assertThat(recordStream.skip(rowCount + 2).findFirst())
+                        .hasValueSatisfying(record ->
+                                Assertions.assertThat(record.getLong(0))
+                                        .isEqualTo(7));
+            }
+        }
+    }
+
+    @Test
+    void testEventTimeField() {
+        final Instant start = Instant.parse("2020-01-01T00:00:00Z");
+        final int rowCount = 20_000;
+        for (final boolean isMultiThreaded : Arrays.asList(false, true)) {
+            final List<List<Long>> runs = new ArrayList<>();
+            for (int run = 0; run < 2; run++) {
+                final DataGenerator.DefinitionBuilder builder = DataGenerator.buildDefinition()
+                        .withRandomSeed(123456L)
+                        .addFieldDefinition(DataGenerator.eventTimeField(
+                                "poisson", start, ArrivalProcess.poisson(100), TimestampFormat.isoMillis()))
+                        .addFieldDefinition(DataGenerator.eventTimeField(
+                                "diurnal", start, ArrivalProcess.diurnal(0.1, 9, 12), TimestampFormat.isoMicros()))
+                        .addFieldDefinition(DataGenerator.eventTimeField(
+                                "bursty",
+                                start,
+                                ArrivalProcess.bursty(ArrivalProcess.diurnal(10, 9, 12), 1),
+                                TimestampFormat.isoMillis()))
+                        .rowCount(rowCount);
+                if (isMultiThreaded) {
+                    builder.multiThreaded();
+                }
+                final List<Long> values = new ArrayList<>();
+                try (final Stream<Record> recordStream = builder.streamRecords()) {
+                    recordStream.forEach(record -> {
+                        values.add(record.getLong(0));
+                        values.add(record.getLong(1));
+                        values.add(record.getLong(2));
+                    });
+                }
+                runs.add(values);
+            }
+            final List<Long> values = runs.get(0);
+            Assertions.assertThat(values)
+                    .isEqualTo(runs.get(1));
+
+            long lastPoissonMillis = start.toEpochMilli();
+            long lastDiurnalMicros = lastPoissonMillis * 1_000;
+            long lastBurstyMillis = lastPoissonMillis;
+            int peakCount = 0;
+            int troughCount = 0;
+            for (int i = 0; i < values.size(); i += 3) {
+                Assertions.assertThat(values.get(i))
+                        .isGreaterThanOrEqualTo(lastPoissonMillis);
+                Assertions.assertThat(values.get(i + 1))
+                        .isGreaterThanOrEqualTo(lastDiurnalMicros);
+                Assertions.assertThat(values.get(i + 2))
+                        .isGreaterThanOrEqualTo(lastBurstyMillis);
+                lastPoissonMillis = values.get(i);
+                lastDiurnalMicros = values.get(i + 1);
+                lastBurstyMillis = values.get(i + 2);
+
+                final long hourOfDay = (lastDiurnalMicros / 3_600_000_000L) % 24;
+                if (hourOfDay >= 10 && hourOfDay < 14) {
+                    peakCount++;
+                } else if (hourOfDay >= 22 || hourOfDay < 2) {
+                    troughCount++;
+                }
+            }
+
+            // 20,000 events at 100/sec take about 200 seconds
+            Assertions.assertThat(lastPoissonMillis - start.toEpochMilli())
+                    .isBetween(190_000L, 210_000L);
+            // About 2.3 days, with nine times the rate at the peak
+            Assertions.assertThat(peakCount)
+                    .isGreaterThan(troughCount * 4);
+        }
+    }
+
+    @Test
+    void testRateLimit() {
+        final RateLimit rowRateLimit = RateLimit.rowsPerSecond(20_000);
+        final List<String> rows = new ArrayList<>();
+        buildRepeatableDefinition()
+                .multiThreaded()
+                .rowCount(5_000)
+                .withRateLimit(rowRateLimit)
+                .consumedBy(stringStream -> stringStream.forEach(rows::add))
+                .generate();
+        LOGGER.info("{}", rowRateLimit);
+
+        Assertions.assertThat(rows)
+                .hasSize(5_000 + 1);
+        // Should take 250ms
+        Assertions.assertThat(rowRateLimit.getDrift())
+                .isBetween(-0.2, 0.01);
+
+        final RateLimit byteRateLimit = RateLimit.bytesPerSecond(1_000_000);
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        buildRepeatableDefinition()
+                .rowCount(2_500)
+                .withRateLimit(byteRateLimit)
+                .consumedBy(DataGenerator.getEncodedOutputStreamConsumer(byteArrayOutputStream, "\n"))
+                .generate();
+        LOGGER.info("{}", byteRateLimit);
+
+        Assertions.assertThat(byteArrayOutputStream.size())
+                .isGreaterThan(100_000);
+        Assertions.assertThat(byteRateLimit.getDrift())
+                .isBetween(-0.2, 0.01);
+    }
+
+    @Test
+    void testRateLimit_pulledStreams() {
+        final RateLimit recordRateLimit = RateLimit.rowsPerSecond(20_000);
+        final long startNanos = System.nanoTime();
+        try (final Stream<Record> recordStream = buildRepeatableDefinition()
+                .unbounded()
+                .withRateLimit(recordRateLimit)
+                .streamRecords()) {
+            Assertions.assertThat(recordStream.limit(5_000).count())
+                    .isEqualTo(5_000);
+        }
+        // Should take 250ms
+        Assertions.assertThat(System.nanoTime() - startNanos)
+                .isGreaterThan(Duration.ofMillis(200).toNanos());
+
+        final RateLimit rowRateLimit = RateLimit.rowsPerSecond(20_000);
+        try (final Stream<String> rowStream = buildRepeatableDefinition()
+                .rowCount(5_000)
+                .withRateLimit(rowRateLimit)
+                .streamRows()) {
+            Assertions.assertThat(rowStream.count())
+                    .isEqualTo(5_000 + 1);
+        }
+        LOGGER.info("{}", rowRateLimit);
+        Assertions.assertThat(rowRateLimit.getDrift())
+                .isBetween(-0.2, 0.01);
+
+        Assertions.assertThatThrownBy(() -> buildRepeatableDefinition()
+                .withRateLimit(RateLimit.bytesPerSecond(1_000))
+                .streamRecords())
+                .hasMessageContaining("streamRows()");
+    }
+
+    @Test
+    void testGenerationMetrics() {
+        final int rowCount = 25_000;
+        final GenerationMetrics metrics = new GenerationMetrics(10);
+        final List<String> unmonitoredRows = new ArrayList<>();
+        final List<String> monitoredRows = new ArrayList<>();
+
+        buildRepeatableDefinition()
+                .multiThreaded()
+                .rowCount(rowCount)
+                .consumedBy(stringStream -> stringStream.forEach(unmonitoredRows::add))
+                .generate();
+        buildRepeatableDefinition()
+                .multiThreaded()
+                .rowCount(rowCount)
+                .withListener(metrics)
+                .consumedBy(stringStream -> stringStream.forEach(monitoredRows::add))
+                .generate();
+
+        LOGGER.info("{}", metrics);
+
+        // Monitoring must not change the output
+        Assertions.assertThat(monitoredRows)
+                .isEqualTo(unmonitoredRows);
+        Assertions.assertThat(metrics.isComplete())
+                .isTrue();
+        Assertions.assertThat(metrics.getRowCount())
+                .isEqualTo(rowCount);
+        Assertions.assertThat(metrics.getRowsGenerated())
+                .isEqualTo(rowCount);
+        Assertions.assertThat(metrics.getMeanFieldNanos())
+                .containsOnlyKeys(
+                        "sequentialNumberField",
+                        "randomValueField",
+                        "randomIpV4Field",
+                        "randomDateTimeField",
+                        "animal",
+                        "half");
+        // Every row but the header row has been encoded
+        Assertions.assertThat(metrics.getEncodedByteCount())
+                .isEqualTo(monitoredRows.stream()
+                        .skip(1)
+                        .mapToLong(row -> row.getBytes(StandardCharsets.UTF_8).length)
+                        .sum());
+    }
+
+    /**
+     * A definition whose output is the same on every run, with multi-byte characters and
+     * values held as longs and doubles.
+     */
+    private DataGenerator.DefinitionBuilder buildRepeatableDefinition() {
+        return DataGenerator.buildDefinition()
+                .withRandomSeed(123456L)
+                .addFieldDefinition(DataGenerator.sequentialNumberField(
+                        "sequentialNumberField",
+                        5,
+                        10))
+                .addFieldDefinition(DataGenerator.randomValueField(
+                        "randomValueField",
+                        Arrays.asList("Red", "Gr\u00fcn", "\u9752")))
+                .addFieldDefinition(DataGenerator.randomIpV4Field("randomIpV4Field"))
+                .addFieldDefinition(DataGenerator.randomDateTimeField(
+                        "randomDateTimeField",
+                        LocalDateTime.of(2016, 1, 1, 0, 0, 0),
+                        LocalDateTime.of(2018, 1, 1, 0, 0, 0),
+                        DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .addFieldDefinition(DataGenerator.randomAnimalEmojiField("animal"))
+                .addFieldDefinition(Field.ofDouble(
+                        "half",
+                        context -> context.getRowNumber() / 2.0));
+    }
+
+    @Test
+    void testEncodedOutputConsumer_requiresEncodingDataWriter() {
+        Assertions.assertThatThrownBy(() ->
+                buildBasicDefinition()
+                        .setDataWriter((fieldDefinitions, recordStream) ->
+                                recordStream.map(record -> String.join(",", record.getValues())))
+                        .rowCount(5)
+                        .consumedBy(DataGenerator.getEncodedOutputStreamConsumer(System.out, "\n"))
+                        .generate())
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("EncodingDataWriter");
+    }
+
     @Test
     void emoji() {
         DataGenerator.buildDefinition()
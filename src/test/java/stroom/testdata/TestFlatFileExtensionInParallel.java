@@ -0,0 +1,57 @@
+package stroom.testdata;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class TestFlatFileExtensionInParallel {
+
+    private static final int NUMBER_FILES = 4;
+    private static final int ROW_COUNT = 8;
+
+    @RegisterExtension()
+    public static final FlatFileTestDataExtension testDataRule = FlatFileTestDataExtension.withTempDirectory()
+            .testDataGenerator(TestFlatFileExtensionInParallel::generateTestData)
+            .numberOfFiles(NUMBER_FILES)
+            .inParallel()
+            .build();
+
+    private static void generateTestData(final Consumer<String> writer) {
+        DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.randomValueField("Species",
+                        Arrays.asList("spider", "whale", "dog", "tiger", "monkey", "lion", "woodlouse", "honey-badger")))
+                .addFieldDefinition(DataGenerator.uuidField("Id"))
+                .setDataWriter(FlatDataWriterBuilder.defaultCsvFormat())
+                .rowCount(ROW_COUNT)
+                .consumedBy(s -> s.forEach(writer))
+                .generate();
+    }
+
+    @Test
+    public void testFilesCreated() throws IOException {
+        Assertions.assertThat(testDataRule.getDataFiles().size())
+                .isEqualTo(NUMBER_FILES);
+
+        // Each file is written in full by its own generator
+        final Set<String> ids = new HashSet<>();
+        for (final Path dataFile : testDataRule.getDataFiles()) {
+            final List<String> lines = Files.readAllLines(dataFile);
+            Assertions.assertThat(lines)
+                    .hasSize(ROW_COUNT + 1);
+            Assertions.assertThat(lines.get(0))
+                    .isEqualTo("Species,Id");
+            lines.subList(1, lines.size()).forEach(line -> ids.add(line.split(",")[1]));
+        }
+        Assertions.assertThat(ids)
+                .hasSize(NUMBER_FILES * ROW_COUNT);
+    }
+}
@@ -0,0 +1,80 @@
+package stroom.testdata;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class TestMappedValueList {
+
+    @TempDir
+    public Path tempDir;
+
+    @Test
+    void testGet_acrossSegments() throws IOException {
+        final List<String> values = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            values.add(i % 7 == 0
+                    ? ""
+                    : "host-" + i + (i % 3 == 0 ? "-caf\u00e9" : ""));
+        }
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            content.append(values.get(i))
+                    .append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        final Path file = write(content.toString());
+
+        for (final int maxSegmentBytes : new int[]{Integer.MAX_VALUE, 4096, 100, 24}) {
+            final MappedValueList mappedValueList = MappedValueList.of(file, maxSegmentBytes);
+            Assertions.assertThat(mappedValueList)
+                    .as("maxSegmentBytes " + maxSegmentBytes)
+                    .containsExactlyElementsOf(values);
+        }
+    }
+
+    @Test
+    void testGet_noTrailingNewLine() throws IOException {
+        Assertions.assertThat(MappedValueList.of(write("one\ntwo\r\nthree")))
+                .containsExactly("one", "two", "three");
+        Assertions.assertThat(MappedValueList.of(write("")))
+                .isEmpty();
+    }
+
+    @Test
+    void testLineTooLong() throws IOException {
+        final Path file = write("short\nmuch too long\n");
+        Assertions.assertThatThrownBy(() -> MappedValueList.of(file, 8))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testSequentialValueField() throws IOException {
+        final Path file = write("red\ngreen\nblue\n");
+        final List<String> rows;
+        try (final Stream<String> rowStream = DataGenerator.buildDefinition()
+                .addFieldDefinition(DataGenerator.sequentialValueField("colour", file))
+                .setDataWriter(FlatDataWriterBuilder.builder().build())
+                .rowCount(4)
+                .streamRows()) {
+            rows = rowStream.collect(Collectors.toList());
+        }
+
+        Assertions.assertThat(rows)
+                .containsExactly("colour", "red", "green", "blue", "red");
+    }
+
+    private Path write(final String content) throws IOException {
+        final Path file = Files.createTempFile(tempDir, "values-", ".txt");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,46 @@
+package stroom.testdata;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+class TestNumberFormatTemplate {
+
+    @Test
+    void testFormat_matchesStringFormat() {
+        final List<String> formats = Arrays.asList(
+                "user-%s",
+                "user-%d",
+                "user-%03d",
+                "%5d|",
+                "%-5d|",
+                "%6s-%%-%n",
+                "no placeholder",
+                "");
+        final long[] values = {0, 7, 42, 999, 123456, -3, -12345, Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+        for (final String format : formats) {
+            final Optional<NumberFormatTemplate> optTemplate = NumberFormatTemplate.compile(format);
+            Assertions.assertThat(optTemplate)
+                    .as(format)
+                    .isPresent();
+            for (final long value : values) {
+                Assertions.assertThat(optTemplate.get().format(value))
+                        .as(format)
+                        .isEqualTo(String.format(format, value));
+            }
+        }
+    }
+
+    @Test
+    void testCompile_unsupported() {
+        for (final String format : Arrays.asList("%x", "%,d", "%+d", "%1$s", "%.2s", "%05s", "%-05d", "%0d", "%s%s", "%")) {
+            Assertions.assertThat(NumberFormatTemplate.compile(format))
+                    .as(format)
+                    .isEmpty();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package stroom.testdata;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TestRandomSource {
+
+    @Test
+    void testRepeatability() {
+        for (final RandomAlgorithm randomAlgorithm : RandomAlgorithm.values()) {
+            final RandomSource randomSource = randomAlgorithm.create(123456L);
+            final List<Long> values1 = nextLongs(randomSource, 100);
+
+            randomSource.setSeed(123456L);
+            final List<Long> values2 = nextLongs(randomSource, 100);
+
+            Assertions.assertThat(values2)
+                    .as(randomAlgorithm.name())
+                    .isEqualTo(values1);
+            Assertions.assertThat(values1.stream().distinct().count())
+                    .as(randomAlgorithm.name())
+                    .isEqualTo(100);
+        }
+    }
+
+    @Test
+    void testBounds() {
+        for (final RandomAlgorithm randomAlgorithm : RandomAlgorithm.values()) {
+            final RandomSource randomSource = randomAlgorithm.create(98765L);
+            final int[] counts = new int[10];
+            for (int i = 0; i < 100_000; i++) {
+                final int intVal = randomSource.nextInt(10);
+                counts[intVal]++;
+
+                Assertions.assertThat(randomSource.nextLong(3_000_000_000L))
+                        .isBetween(0L, 2_999_999_999L);
+                Assertions.assertThat(randomSource.nextDouble())
+                        .isGreaterThanOrEqualTo(0.0)
+                        .isLessThan(1.0);
+            }
+            // Very loose check that values are spread evenly
+            for (final int count : counts) {
+                Assertions.assertThat(count)
+                        .as(randomAlgorithm.name())
+                        .isBetween(9_000, 11_000);
+            }
+        }
+    }
+
+    @Test
+    void testBadBound() {
+        Assertions.assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() ->
+                        RandomAlgorithm.PCG_32.create(1L).nextInt(0));
+    }
+
+    @Test
+    void testFakerRepeatability() {
+        for (final RandomAlgorithm randomAlgorithm : RandomAlgorithm.values()) {
+            final List<String> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                DataGenerator.buildDefinition()
+                        .withRandomSeed(123456L)
+                        .withRandomAlgorithm(randomAlgorithm)
+                        .addFieldDefinition(DataGenerator.fakerField(
+                                "beer",
+                                faker -> faker.beer().name()))
+                        .addFieldDefinition(DataGenerator.randomIpV4Field("ip"))
+                        .consumedBy(stringStream ->
+                                results.add(stringStream
+                                        .collect(Collectors.joining("\n"))))
+                        .rowCount(20)
+                        .generate();
+            }
+            Assertions.assertThat(results.get(1))
+                    .as(randomAlgorithm.name())
+                    .isEqualTo(results.get(0));
+        }
+    }
+
+    private List<Long> nextLongs(final RandomSource randomSource, final int count) {
+        final List<Long> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            values.add(randomSource.nextLong());
+        }
+        return values;
+    }
+}
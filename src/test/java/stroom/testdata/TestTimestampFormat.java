@@ -0,0 +1,61 @@
+package stroom.testdata;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+class TestTimestampFormat {
+
+    private static final DateTimeFormatter ISO_MILLIS_FORMATTER = DateTimeFormatter.ofPattern(
+            "uuuu-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter ISO_MICROS_FORMATTER = DateTimeFormatter.ofPattern(
+            "uuuu-MM-dd'T'HH:mm:ss.SSSSSS'Z'").withZone(ZoneOffset.UTC);
+
+    @Test
+    void testRender_matchesDateTimeFormatter() {
+        final TimestampFormat isoMillis = TimestampFormat.isoMillis();
+        final TimestampFormat isoMicros = TimestampFormat.isoMicros();
+        final TimestampFormat basicDate = TimestampFormat.basicDate();
+        final Random random = new Random(123);
+        final long startMillis = Instant.parse("1950-01-01T00:00:00Z").toEpochMilli();
+        final long endMillis = Instant.parse("2100-01-01T00:00:00Z").toEpochMilli();
+
+        long epochMillis = startMillis;
+        for (int i = 0; i < 10_000; i++) {
+            // Mix of jumps and small steps to exercise the cached prefix
+            epochMillis = i % 10 == 0
+                    ? startMillis + (long) (random.nextDouble() * (endMillis - startMillis))
+                    : epochMillis + random.nextInt(600_000);
+            final long epochMicros = epochMillis * 1_000 + random.nextInt(1_000);
+            final Instant instant = Instant.ofEpochMilli(epochMillis);
+
+            Assertions.assertThat(render(isoMillis, epochMillis))
+                    .isEqualTo(ISO_MILLIS_FORMATTER.format(instant));
+            Assertions.assertThat(render(isoMicros, epochMicros))
+                    .isEqualTo(ISO_MICROS_FORMATTER.format(Instant.EPOCH.plus(epochMicros, ChronoUnit.MICROS)));
+            Assertions.assertThat(render(basicDate, epochMillis))
+                    .isEqualTo(DateTimeFormatter.BASIC_ISO_DATE.format(instant.atOffset(ZoneOffset.UTC).toLocalDate()));
+        }
+    }
+
+    @Test
+    void testRender_epoch() {
+        Assertions.assertThat(render(TimestampFormat.epochMillis(), 1619787909123L))
+                .isEqualTo("1619787909123");
+        Assertions.assertThat(render(TimestampFormat.epochMicros(), -1L))
+                .isEqualTo("-1");
+        Assertions.assertThat(render(TimestampFormat.isoMillis(), -1L))
+                .isEqualTo("1969-12-31T23:59:59.999Z");
+    }
+
+    private static String render(final TimestampFormat format, final long value) {
+        final StringBuilder stringBuilder = new StringBuilder();
+        format.render(value, stringBuilder);
+        return stringBuilder.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package stroom.testdata;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class TestUtf8Buffer {
+
+    @Test
+    void testAppend_matchesStringEncoding() {
+        final String text = "plain ascii, caf\u00e9, \u20ac100, \u65e5\u672c, \uD83D\uDE00, lone \uD83D surrogate";
+        final Utf8Buffer buffer = new Utf8Buffer(4);
+        buffer.append(text);
+
+        Assertions.assertThat(buffer.toByteArray())
+                .isEqualTo(text.getBytes(StandardCharsets.UTF_8));
+        Assertions.assertThat(buffer.size())
+                .isEqualTo(text.getBytes(StandardCharsets.UTF_8).length);
+        Assertions.assertThat(Utf8Buffer.encodedLength(text))
+                .isEqualTo(buffer.size());
+    }
+
+    @Test
+    void testAppend_long() {
+        final Utf8Buffer buffer = new Utf8Buffer();
+        final long[] values = {0, 9, 10, -1, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+        final StringBuilder expected = new StringBuilder();
+        for (final long value : values) {
+            buffer.append(value).append(',');
+            expected.append(value).append(',');
+        }
+
+        Assertions.assertThat(buffer.toString())
+                .isEqualTo(expected.toString());
+    }
+
+    @Test
+    void testReset() {
+        final Utf8Buffer buffer = new Utf8Buffer();
+        buffer.appendCodePoint(0x1F600);
+        buffer.reset();
+        buffer.append("abc");
+
+        Assertions.assertThat(buffer.toString())
+                .isEqualTo("abc");
+    }
+}
@@ -0,0 +1,56 @@
+package stroom.testdata;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+class TestValueDistribution {
+
+    private static final int SAMPLE_COUNT = 1_000_000;
+
+    @Test
+    void testWeighted() {
+        final double[] weights = {5, 0, 1, 2, 0, 12};
+        final int[] counts = sample(ValueDistribution.weighted(weights));
+
+        Assertions.assertThat(counts[1]).isZero();
+        Assertions.assertThat(counts[4]).isZero();
+        for (int i = 0; i < weights.length; i++) {
+            Assertions.assertThat(counts[i] / (double) SAMPLE_COUNT)
+                    .as("index " + i)
+                    .isCloseTo(weights[i] / 20, Offset.offset(0.005));
+        }
+    }
+
+    @Test
+    void testZipfian() {
+        final int size = 1_000;
+        final int[] counts = sample(ValueDistribution.zipfian(size, 1));
+
+        double harmonicNumber = 0;
+        for (int i = 1; i <= size; i++) {
+            harmonicNumber += 1.0 / i;
+        }
+        Assertions.assertThat(counts[0] / (double) SAMPLE_COUNT)
+                .isCloseTo(1 / harmonicNumber, Offset.offset(0.005));
+        Assertions.assertThat(counts[0] / (double) counts[9])
+                .isCloseTo(10, Offset.offset(1.0));
+    }
+
+    @Test
+    void testInvalidWeights() {
+        Assertions.assertThatThrownBy(() -> ValueDistribution.weighted(new double[]{0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+        Assertions.assertThatThrownBy(() -> ValueDistribution.weighted(new double[]{1, -1}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int[] sample(final ValueDistribution distribution) {
+        final RandomSource random = RandomAlgorithm.values()[0].create(123456L);
+        final int[] counts = new int[distribution.getSize()];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            counts[distribution.nextIndex(random)]++;
+        }
+        return counts;
+    }
+}